@@ -0,0 +1,79 @@
+/**
+ * BenchmarkEngines.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import com.jsen.core.GlobalObjectScriptSettings;
+import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.JavaScriptEngineFactory;
+
+/**
+ * Creates the engines for the benchmarks.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class BenchmarkEngines {
+	private BenchmarkEngines() {}
+
+	/**
+	 * Creates the engine without any global object.
+	 *
+	 * @param factory Factory with the engine options.
+	 * @return New engine.
+	 */
+	public static JavaScriptEngine<Object> createEngine(JavaScriptEngineFactory factory) {
+		return new JavaScriptEngine<Object>(factory, null);
+	}
+
+	/**
+	 * Creates the engine with the benchmark global object.
+	 *
+	 * @param factory Factory with the engine options.
+	 * @return New engine.
+	 */
+	public static JavaScriptEngine<BenchmarkGlobal> createGlobalObjectEngine(JavaScriptEngineFactory factory) {
+		return new JavaScriptEngine<BenchmarkGlobal>(factory, new GlobalObjectScriptSettings<BenchmarkGlobal>(new BenchmarkGlobal()));
+	}
+
+	/**
+	 * Returns script which consists of the passed number of functions.
+	 *
+	 * @param functionsCount Number of the functions.
+	 * @return Script source.
+	 */
+	public static String createScript(int functionsCount) {
+		StringBuilder script = new StringBuilder();
+
+		for (int i = 0; i < functionsCount; i++) {
+			script.append("function f").append(i).append("(a, b) {\n");
+			script.append("\tvar result = 0;\n");
+			script.append("\tfor (var i = 0; i < a; i++) {\n");
+			script.append("\t\tresult += (i * b) % 7;\n");
+			script.append("\t}\n");
+			script.append("\treturn result;\n");
+			script.append("}\n");
+		}
+
+		script.append("f0(10, 3);\n");
+		return script.toString();
+	}
+}
@@ -0,0 +1,64 @@
+/**
+ * BenchmarkGlobal.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jsen.core.annotation.ScriptClass;
+import com.jsen.core.annotation.ScriptGetter;
+
+/**
+ * Global object of the benchmarked engines.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@ScriptClass
+public class BenchmarkGlobal {
+	/**
+	 * Number of the items of the list.
+	 */
+	public static final int LIST_SIZE = 1000;
+
+	private final BenchmarkObject object;
+	private final List<Integer> list;
+
+	public BenchmarkGlobal() {
+		this.object = new BenchmarkObject();
+		this.list = new ArrayList<Integer>(LIST_SIZE);
+
+		for (int i = 0; i < LIST_SIZE; i++) {
+			list.add(i);
+		}
+	}
+
+	@ScriptGetter
+	public BenchmarkObject getObject() {
+		return object;
+	}
+
+	@ScriptGetter
+	public List<Integer> getList() {
+		return list;
+	}
+}
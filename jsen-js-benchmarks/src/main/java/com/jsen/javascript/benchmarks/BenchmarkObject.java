@@ -0,0 +1,63 @@
+/**
+ * BenchmarkObject.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import com.jsen.core.annotation.ScriptClass;
+import com.jsen.core.annotation.ScriptFunction;
+import com.jsen.core.annotation.ScriptGetter;
+import com.jsen.core.annotation.ScriptSetter;
+
+/**
+ * Java object which is accessed by the benchmarked scripts.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@ScriptClass
+public class BenchmarkObject {
+	private double value;
+
+	@ScriptGetter
+	public double getValue() {
+		return value;
+	}
+
+	@ScriptSetter
+	public void setValue(double value) {
+		this.value = value;
+	}
+
+	@ScriptFunction
+	public double add(int number) {
+		return value + number;
+	}
+
+	@ScriptFunction
+	public double add(double number) {
+		return value + number;
+	}
+
+	@ScriptFunction
+	public String add(String text) {
+		return value + text;
+	}
+}
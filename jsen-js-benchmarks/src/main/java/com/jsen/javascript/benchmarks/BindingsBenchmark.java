@@ -0,0 +1,96 @@
+/**
+ * BindingsBenchmark.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.jsen.javascript.ConcurrentBindings;
+
+/**
+ * Measures concurrent reads and writes of the bindings shared by more threads.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class BindingsBenchmark {
+	private static final int NAMES_COUNT = 64;
+
+	@Param({"concurrent", "synchronized"})
+	public String bindingsType;
+
+	private Bindings bindings;
+	private String[] names;
+
+	@Setup
+	public void setUp() {
+		bindings = (bindingsType.equals("concurrent"))? new ConcurrentBindings() : new SynchronizedBindings();
+		names = new String[NAMES_COUNT];
+
+		for (int i = 0; i < NAMES_COUNT; i++) {
+			names[i] = "name" + i;
+			bindings.put(names[i], i);
+		}
+	}
+
+	@Benchmark
+	public Object get() {
+		return bindings.get(names[(int)(Thread.currentThread().getId() % NAMES_COUNT)]);
+	}
+
+	@Benchmark
+	public Object put() {
+		String name = names[(int)(Thread.currentThread().getId() % NAMES_COUNT)];
+		return bindings.put(name, name);
+	}
+
+	/*
+	 * Simple bindings guarded by the lock, as they were used before the concurrent bindings.
+	 */
+	private static class SynchronizedBindings extends SimpleBindings {
+		@Override
+		public synchronized Object get(Object key) {
+			return super.get(key);
+		}
+
+		@Override
+		public synchronized Object put(String name, Object value) {
+			return super.put(name, value);
+		}
+	}
+}
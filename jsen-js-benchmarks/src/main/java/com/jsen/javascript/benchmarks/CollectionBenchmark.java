@@ -0,0 +1,64 @@
+/**
+ * CollectionBenchmark.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.JavaScriptEngineFactory;
+
+/**
+ * Measures indexed access to the hosted Java list.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollectionBenchmark {
+	private CompiledScript indexScript;
+
+	@Setup
+	public void setUp() throws ScriptException {
+		JavaScriptEngine<BenchmarkGlobal> engine = BenchmarkEngines.createGlobalObjectEngine(new JavaScriptEngineFactory());
+		indexScript = engine.compile("var l = list, r = 0; for (var i = 0; i < " + BenchmarkGlobal.LIST_SIZE + "; i++) { r += l[i]; } r;");
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BenchmarkGlobal.LIST_SIZE)
+	public Object indexAccess() throws ScriptException {
+		return indexScript.eval();
+	}
+}
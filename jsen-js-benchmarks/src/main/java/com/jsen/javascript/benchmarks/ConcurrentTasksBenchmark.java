@@ -0,0 +1,152 @@
+/**
+ * ConcurrentTasksBenchmark.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.ScriptException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.jsen.core.GlobalObjectScriptSettings;
+import com.jsen.javascript.JavaScriptContextFactory;
+import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.JavaScriptEngineFactory;
+import com.jsen.javascript.JavaScriptEnginePool;
+import com.jsen.javascript.JavaScriptFunction;
+
+/**
+ * Measures 100k lightweight script tasks which run concurrently on the executor. With the thread bound
+ * contexts all tasks call the function of one shared engine, so every worker thread creates its own context.
+ * With the engine bound contexts every task borrows the engine from the pool and enters its context.
+ * Cached executor starts new threads whenever all workers are busy, so it approximates the short living threads.
+ * On Java 21 and later the executor can be replaced by <code>Executors.newVirtualThreadPerTaskExecutor()</code>,
+ * every task then runs on its own virtual thread, which suits the engine bound contexts, because
+ * the thread bound contexts would be created for every virtual thread.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConcurrentTasksBenchmark {
+	private static final int TASKS = 100000;
+	private static final String SETUP_SCRIPT = "function identity(a) { return a; }";
+
+	@Param({"THREAD", "ENGINE"})
+	public JavaScriptContextFactory.ContextBinding contextBinding;
+
+	@Param({"FIXED", "CACHED"})
+	public String executorType;
+
+	@Param({"64"})
+	public int parallelism;
+
+	private ExecutorService executor;
+	private JavaScriptFunction sharedFunction;
+	private JavaScriptEnginePool enginePool;
+	private AtomicInteger failures;
+
+	@Setup
+	public void setUp() throws ScriptException, NoSuchMethodException {
+		JavaScriptEngineFactory factory = new JavaScriptEngineFactory();
+		factory.setContextBinding(contextBinding);
+
+		if (contextBinding == JavaScriptContextFactory.ContextBinding.ENGINE) {
+			GlobalObjectScriptSettings<BenchmarkGlobal> settings = new GlobalObjectScriptSettings<BenchmarkGlobal>(new BenchmarkGlobal());
+			enginePool = factory.createEnginePool(settings, parallelism, 0, SETUP_SCRIPT);
+			enginePool.warmUp(parallelism);
+		} else {
+			JavaScriptEngine<Object> engine = BenchmarkEngines.createEngine(factory);
+			engine.eval(SETUP_SCRIPT);
+			sharedFunction = engine.lookupFunction("identity");
+		}
+
+		executor = (executorType.equals("CACHED"))? Executors.newCachedThreadPool() : Executors.newFixedThreadPool(parallelism);
+		failures = new AtomicInteger();
+	}
+
+	@TearDown
+	public void tearDown() {
+		executor.shutdownNow();
+
+		if (enginePool != null) {
+			enginePool.close();
+		}
+
+		if (failures.get() > 0) {
+			throw new IllegalStateException(failures.get() + " tasks failed");
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TASKS)
+	public void runTasks() throws InterruptedException {
+		final CountDownLatch done = new CountDownLatch(TASKS);
+
+		for (int i = 0; i < TASKS; i++) {
+			final int value = i;
+
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						call(value);
+					} catch (Exception e) {
+						failures.incrementAndGet();
+					} finally {
+						done.countDown();
+					}
+				}
+			});
+		}
+
+		done.await();
+	}
+
+	private Object call(int value) throws Exception {
+		if (enginePool == null) {
+			return sharedFunction.call(value);
+		}
+
+		JavaScriptEngine<?> engine = enginePool.borrowEngine();
+		try {
+			return engine.lookupFunction("identity").call(value);
+		} finally {
+			enginePool.returnEngine(engine);
+		}
+	}
+}
@@ -0,0 +1,81 @@
+/**
+ * InvokeFunctionBenchmark.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.JavaScriptEngineFactory;
+import com.jsen.javascript.JavaScriptFunction;
+
+/**
+ * Measures calls of the script function from Java, resolved per call and through the function handle.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InvokeFunctionBenchmark {
+	@Param({"-1", "0"})
+	public int optimizationLevel;
+
+	private JavaScriptEngine<Object> engine;
+	private JavaScriptFunction function;
+
+	@Setup
+	public void setUp() throws ScriptException, NoSuchMethodException {
+		JavaScriptEngineFactory factory = new JavaScriptEngineFactory();
+		factory.setOptimizationLevel(optimizationLevel);
+
+		engine = BenchmarkEngines.createEngine(factory);
+		engine.eval("function sum(a, b) { return a + b; }");
+		function = engine.lookupFunction("sum");
+	}
+
+	@Benchmark
+	public Object invokeFunction() throws ScriptException, NoSuchMethodException {
+		return engine.invokeFunction("sum", 1, 2);
+	}
+
+	@Benchmark
+	public Object callFunctionHandle() throws ScriptException {
+		return function.call(1, 2);
+	}
+
+	@Benchmark
+	public double callFunctionHandleDouble() throws ScriptException {
+		return function.callDouble(1, 2);
+	}
+}
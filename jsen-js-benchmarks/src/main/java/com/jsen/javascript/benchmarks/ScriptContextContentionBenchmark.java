@@ -0,0 +1,117 @@
+/**
+ * ScriptContextContentionBenchmark.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+import javax.script.SimpleScriptContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.jsen.javascript.ConcurrentBindings;
+import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.JavaScriptEngineFactory;
+
+/**
+ * Measures lookups of the bound variables from the scripts which are evaluated by more
+ * threads with one shared script context. Concurrent bindings are read without locking,
+ * simple bindings go through the monitor of the script context, as all contexts did before.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ScriptContextContentionBenchmark {
+	private static final String LOOKUP_SCRIPT = "(function() { var result = 0; for (var i = 0; i < 100; i++) { result += first + second; } return result; })();";
+
+	@Param({"concurrent", "synchronized"})
+	public String bindingsType;
+
+	private CompiledScript compiledScript;
+	private ScriptContext sharedContext;
+
+	@Setup
+	public void setUp() throws ScriptException {
+		JavaScriptEngineFactory factory = new JavaScriptEngineFactory();
+		JavaScriptEngine<Object> engine = BenchmarkEngines.createEngine(factory);
+
+		Bindings bindings = (bindingsType.equals("concurrent"))? new ConcurrentBindings() : new SimpleBindings();
+		bindings.put("first", 1);
+		bindings.put("second", 2);
+
+		sharedContext = new SimpleScriptContext();
+		sharedContext.setBindings(bindings, ScriptContext.ENGINE_SCOPE);
+
+		compiledScript = engine.compile(LOOKUP_SCRIPT);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Object lookup1() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+
+	@Benchmark
+	@Threads(2)
+	public Object lookup2() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Object lookup4() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+
+	@Benchmark
+	@Threads(8)
+	public Object lookup8() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+
+	@Benchmark
+	@Threads(16)
+	public Object lookup16() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+
+	@Benchmark
+	@Threads(32)
+	public Object lookup32() throws ScriptException {
+		return compiledScript.eval(sharedContext);
+	}
+}
@@ -0,0 +1,124 @@
+/**
+ * AdaptiveScript.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Script which is interpreted at first and which is compiled into bytecode
+ * after it was executed the given number of times. Compiling is attempted only once,
+ * if it fails, e.g. because the script exceeds some compiler limit, then the failure
+ * is logged and the script stays interpreted without any retry.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#setAdaptiveCompileThreshold(int)
+ */
+public class AdaptiveScript implements Script {
+	private static final Logger LOGGER = Logger.getLogger(AdaptiveScript.class.getName());
+
+	private final String source;
+	private final String sourceName;
+	private final int compileThreshold;
+	private final int optimizationLevel;
+	private final ScriptBytecodeCache bytecodeCache;
+	private final Script interpretedScript;
+	private final AtomicInteger executionCount;
+	private volatile Script compiledScript;
+
+	/**
+	 * Constructs adaptive script.
+	 *
+	 * @param interpretedScript Script compiled for the interpreter.
+	 * @param source Source of the script.
+	 * @param sourceName Name of the script source.
+	 * @param compileThreshold Number of the executions after which is the script compiled.
+	 * @param optimizationLevel Optimization level of the compiled script.
+	 * @param bytecodeCache Bytecode cache to be used for compiling, or null.
+	 */
+	public AdaptiveScript(Script interpretedScript, String source, String sourceName, int compileThreshold, int optimizationLevel, ScriptBytecodeCache bytecodeCache) {
+		this.interpretedScript = interpretedScript;
+		this.source = source;
+		this.sourceName = sourceName;
+		this.compileThreshold = compileThreshold;
+		this.optimizationLevel = optimizationLevel;
+		this.bytecodeCache = bytecodeCache;
+		this.executionCount = new AtomicInteger();
+	}
+
+	@Override
+	public Object exec(Context cx, Scriptable scope) {
+		Script script = compiledScript;
+
+		if (script == null) {
+			script = interpretedScript;
+
+			if (executionCount.incrementAndGet() == compileThreshold) {
+				script = compile(cx);
+			}
+		}
+
+		return script.exec(cx, scope);
+	}
+
+	/**
+	 * Tests whether the script was already compiled into bytecode.
+	 *
+	 * @return True if the script was compiled, otherwise false.
+	 */
+	public boolean isCompiled() {
+		return compiledScript != null;
+	}
+
+	/**
+	 * Returns number of the interpreted executions.
+	 *
+	 * @return Number of the interpreted executions.
+	 */
+	public int getExecutionCount() {
+		return executionCount.get();
+	}
+
+	private Script compile(Context cx) {
+		int contextOptimizationLevel = cx.getOptimizationLevel();
+
+		try {
+			cx.setOptimizationLevel(optimizationLevel);
+
+			Script script = (bytecodeCache != null)? bytecodeCache.getScript(cx, source, sourceName) : null;
+			script = (script != null)? script : cx.compileString(source, sourceName, 1, null);
+			compiledScript = script;
+
+			return script;
+		} catch (RuntimeException e) {
+			LOGGER.log(Level.WARNING, "Unable to compile script " + sourceName + ", it stays interpreted", e);
+			return interpretedScript;
+		} finally {
+			cx.setOptimizationLevel(contextOptimizationLevel);
+		}
+	}
+}
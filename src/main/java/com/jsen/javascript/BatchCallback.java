@@ -0,0 +1,48 @@
+/**
+ * BatchCallback.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import javax.script.ScriptException;
+
+/**
+ * Receives the results of the batch invocation as soon as the particular calls finish.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#invokeFunctionBatch(String, Iterable, BatchCallback)
+ */
+public interface BatchCallback {
+	/**
+	 * Called when the call finished successfully.
+	 *
+	 * @param index Index of the call arguments in the batch.
+	 * @param result Unwrapped returned value.
+	 */
+	public void onResult(int index, Object result);
+
+	/**
+	 * Called when the call failed.
+	 *
+	 * @param index Index of the call arguments in the batch.
+	 * @param exception Exception which describes the failure.
+	 */
+	public void onError(int index, ScriptException exception);
+}
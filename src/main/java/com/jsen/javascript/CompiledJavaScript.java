@@ -28,6 +28,9 @@ import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Script;
 import org.mozilla.javascript.Scriptable;
 
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
+
 /**
  * Wraps compiled Rhino script into JSR 223 compiled Script.
  * 
@@ -39,26 +42,83 @@ public class CompiledJavaScript extends CompiledScript {
 
 	private JavaScriptEngine<?> scriptEngine;
 	private Script script;
+	private String scriptName;
 	
 	public CompiledJavaScript(JavaScriptEngine<?> scriptEngine, Script script) {
+		this(scriptEngine, script, null);
+	}
+	
+	/**
+	 * Constructs compiled script with the name of its source.
+	 * 
+	 * @param scriptEngine Script engine which compiled the script.
+	 * @param script Compiled Rhino script.
+	 * @param scriptName Name of the script source.
+	 */
+	public CompiledJavaScript(JavaScriptEngine<?> scriptEngine, Script script, String scriptName) {
 		this.scriptEngine = scriptEngine;
 		this.script = script;
+		this.scriptName = scriptName;
+	}
+	
+	/**
+	 * Returns name of the script source.
+	 * 
+	 * @return Name of the script source or null if it is not known.
+	 */
+	public String getScriptName() {
+		return scriptName;
 	}
 	
 	@Override
 	public Object eval(ScriptContext context) throws ScriptException {
+		return eval(context, scriptEngine.getBudget());
+	}
+	
+	/**
+	 * Evaluates the script with the passed budget instead of the budget of the engine.
+	 * Budget limits the script only if it was compiled while the engine had some budget.
+	 * 
+	 * @param context Script context of the evaluation.
+	 * @param budget Budget of this evaluation, null for no limits.
+	 * @return Unwrapped value of the script.
+	 * @throws ScriptException Thrown if the script fails, it is ScriptBudgetException if the script exceeds its budget.
+	 */
+	public Object eval(ScriptContext context, ScriptBudget budget) throws ScriptException {
 		Object ret = null;
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		long startTime = (measured)? System.nanoTime() : 0;
+		String previousScriptName = (measured)? EngineMetrics.enterScript(scriptName) : null;
+		boolean failed = true;
 		 
-		Context cx = scriptEngine.enterContext();
+		Context cx = scriptEngine.enterContext(budget);
 
 		try {
 			Scriptable executionScope = scriptEngine.getExecutionScope(context);
-			Object res = script.exec(cx, executionScope);
-			ret = scriptEngine.unwrap(res);
+			ScriptRegistry scriptRegistry = (scriptName != null)? scriptEngine.getScriptRegistry() : null;
+			long executionStartTime = (scriptRegistry != null)? System.nanoTime() : 0;
+			
+			try {
+				Object res = script.exec(cx, executionScope);
+				ret = scriptEngine.unwrap(res);
+				failed = false;
+			} finally {
+				if (scriptRegistry != null) {
+					scriptRegistry.recordExecution(scriptName, System.nanoTime() - executionStartTime, failed);
+				}
+			}
+		} catch (ScriptBudgetExceededError err) {
+			throw new ScriptBudgetException(err);
 		} catch (Exception e) {
 			JavaScriptEngine.throwWrappedScriptException(e);
 		} finally {
-			Context.exit();
+			scriptEngine.exitContext();
+			
+			if (measured) {
+				EngineMetrics.exitScript(previousScriptName);
+				metrics.record(ScriptMetrics.Operation.COMPILED_EVAL, scriptName, System.nanoTime() - startTime, failed);
+			}
 		}
 
 		return ret;
@@ -0,0 +1,207 @@
+/**
+ * ConcurrentBindings.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.script.Bindings;
+
+/**
+ * Bindings which are backed by the concurrent map, so they can be read
+ * and modified by more threads without any locking. Null values are
+ * stored using the internal marker, because the concurrent map does not permit them.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class ConcurrentBindings extends AbstractMap<String, Object> implements Bindings {
+	private static final Object NULL_VALUE = new Object();
+
+	private final ConcurrentMap<String, Object> map;
+	private Set<Map.Entry<String, Object>> entrySet;
+
+	/**
+	 * Constructs new empty bindings.
+	 */
+	public ConcurrentBindings() {
+		this.map = new ConcurrentHashMap<String, Object>();
+	}
+
+	/**
+	 * Constructs new bindings with the values of the passed map.
+	 *
+	 * @param values Values to be put into bindings.
+	 */
+	public ConcurrentBindings(Map<String, Object> values) {
+		this();
+		putAll(values);
+	}
+
+	/**
+	 * Returns value with the passed name using only one lookup.
+	 *
+	 * @param name Name of the value.
+	 * @param absentValue Value to be returned if there is no value with the passed name.
+	 * @return Value with the passed name or the passed absent value.
+	 */
+	public Object lookup(String name, Object absentValue) {
+		Object value = map.get(name);
+		return (value == null)? absentValue : unmask(value);
+	}
+
+	/**
+	 * Replaces value with the passed name only if some value with this name already exists.
+	 *
+	 * @param name Name of the value.
+	 * @param value New value.
+	 * @return True if the value was replaced, otherwise false.
+	 */
+	public boolean replaceExisting(String name, Object value) {
+		checkKey(name);
+		return map.replace(name, mask(value)) != null;
+	}
+
+	@Override
+	public Object put(String name, Object value) {
+		checkKey(name);
+		return unmask(map.put(name, mask(value)));
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends Object> toMerge) {
+		for (Map.Entry<? extends String, ? extends Object> entry : toMerge.entrySet()) {
+			put(entry.getKey(), entry.getValue());
+		}
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		checkKey(key);
+		return map.containsKey(key);
+	}
+
+	@Override
+	public Object get(Object key) {
+		checkKey(key);
+		return unmask(map.get(key));
+	}
+
+	@Override
+	public Object remove(Object key) {
+		checkKey(key);
+		return unmask(map.remove(key));
+	}
+
+	@Override
+	public int size() {
+		return map.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return map.isEmpty();
+	}
+
+	@Override
+	public void clear() {
+		map.clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return map.keySet();
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new AbstractSet<Map.Entry<String, Object>>() {
+				@Override
+				public Iterator<Map.Entry<String, Object>> iterator() {
+					final Iterator<Map.Entry<String, Object>> it = map.entrySet().iterator();
+
+					return new Iterator<Map.Entry<String, Object>>() {
+						@Override
+						public boolean hasNext() {
+							return it.hasNext();
+						}
+
+						@Override
+						public Map.Entry<String, Object> next() {
+							final Map.Entry<String, Object> entry = it.next();
+
+							return new AbstractMap.SimpleEntry<String, Object>(entry.getKey(), unmask(entry.getValue())) {
+								private static final long serialVersionUID = -5284613412950623817L;
+
+								@Override
+								public Object setValue(Object value) {
+									super.setValue(value);
+									return unmask(map.put(entry.getKey(), mask(value)));
+								}
+							};
+						}
+
+						@Override
+						public void remove() {
+							it.remove();
+						}
+					};
+				}
+
+				@Override
+				public int size() {
+					return map.size();
+				}
+
+				@Override
+				public void clear() {
+					map.clear();
+				}
+			};
+		}
+
+		return entrySet;
+	}
+
+	private static Object mask(Object value) {
+		return (value == null)? NULL_VALUE : value;
+	}
+
+	private static Object unmask(Object value) {
+		return (value == NULL_VALUE)? null : value;
+	}
+
+	private static void checkKey(Object key) {
+		if (key == null) {
+			throw new NullPointerException("Key cannot be null");
+		} else if (!(key instanceof String)) {
+			throw new ClassCastException("Key must be a String");
+		} else if (((String)key).isEmpty()) {
+			throw new IllegalArgumentException("Key cannot be empty");
+		}
+	}
+}
@@ -24,17 +24,21 @@ import org.mozilla.javascript.ContextFactory;
 
 import com.jsen.core.adapter.AdapterRegistry;
 import com.jsen.core.reflect.ClassMembersResolverFactory;
+import com.jsen.javascript.java.HostedClassMembersCache;
 import com.jsen.javascript.wrap.AdapterWrapFactoryDecorator;
+import com.jsen.javascript.wrap.ByteBufferWrapFactoryDecorator;
 import com.jsen.javascript.wrap.CollectionsWrapFactoryDecorator;
 import com.jsen.javascript.wrap.DefaultWrapFactoryDecorator;
 import com.jsen.javascript.wrap.ErrorAdapter;
 import com.jsen.javascript.wrap.ListAdapter;
+import com.jsen.javascript.wrap.MetricsWrapFactoryDecorator;
 import com.jsen.javascript.wrap.WrapFactoryDecorator;
 
 /**
  * Context factory that is used for all JavaScript engines.
- * This context should be associated with the JavaScriptEngine 
- * that is unique for one thread, because there should be one context per one thread.
+ * Factory keeps one context per thread and reuses it for all subsequent
+ * entries from the same thread, together with the wrap factory chain
+ * which is built only once and shared by all contexts of this factory.
  * 
  * @author Radim Loskot
  * @version 0.9
@@ -42,9 +46,44 @@ import com.jsen.javascript.wrap.WrapFactoryDecorator;
  */
 public class JavaScriptContextFactory extends ContextFactory {
 	
+	/**
+	 * Number of the instructions after which the context checks the budget of the running script.
+	 * Threshold is set only for the entries with a budget, because Rhino generates the instruction
+	 * counting only into the code compiled while the threshold is set, so the code compiled without
+	 * any budget does not pay for the counting, but it cannot be limited by a later budget either.
+	 */
+	public static final int INSTRUCTION_OBSERVER_THRESHOLD = 10000;
+	
+	/**
+	 * Key of the context thread local value, which holds the budget usage of the running script.
+	 */
+	public static final Object BUDGET_USAGE_KEY = ScriptBudgetUsage.class;
+	
+	/**
+	 * Describes to what is bound the context which is reused by the subsequent entries.
+	 */
+	public enum ContextBinding {
+		/**
+		 * Every thread has its own context, which is reused by all entries from this thread.
+		 */
+		THREAD,
+		
+		/**
+		 * Engine has only one context, which is entered by the thread that currently uses the engine.
+		 * Engine must not be used by two threads at the same time, e.g. it should be leased from
+		 * the engine pool. This mode suits for the large number of short living threads.
+		 */
+		ENGINE
+	}
+	
 	protected JavaScriptEngine<?> scriptEngine;
 	protected ClassMembersResolverFactory membersResolverFactory;
 	protected AdapterRegistry adapterRegistry;
+	protected HostedClassMembersCache classMembersCache;
+	protected WrapFactoryDecorator wrapFactoryDecorator;
+	
+	private final ThreadLocal<Context> threadContexts;
+	private volatile Context engineContext;
 	
 	/*public JavaScriptContextFactory() {
 		this(new WindowJavaScriptEngine(null, null));
@@ -59,9 +98,61 @@ public class JavaScriptContextFactory extends ContextFactory {
 		this.scriptEngine = scriptEngine;
 		this.membersResolverFactory = scriptEngine.getClassMembersResolverFactory();
 		this.adapterRegistry = new AdapterRegistry();
+		this.classMembersCache = new HostedClassMembersCache(membersResolverFactory);
+		this.threadContexts = new ThreadLocal<Context>();
 
 		this.adapterRegistry.registerAdapter(ErrorAdapter.class);
 		this.adapterRegistry.registerAdapter(ListAdapter.class);
+		
+		this.wrapFactoryDecorator = createWrapFactoryDecorator();
+	}
+	
+	/**
+	 * Enters the context of the current thread or of the engine, according to the context
+	 * binding of the associated engine. Entered context has always the current optimization
+	 * level of the associated engine.
+	 * 
+	 * @return Entered context.
+	 */
+	@Override
+	public Context enterContext() {
+		Context cx;
+		
+		if (scriptEngine.getContextBinding() == ContextBinding.ENGINE) {
+			cx = enterEngineContext();
+		} else {
+			cx = enterThreadContext();
+		}
+		
+		int optimizationLevel = scriptEngine.getOptimizationLevel();
+		if (cx.getFactory() == this && cx.getOptimizationLevel() != optimizationLevel) {
+			cx.setOptimizationLevel(optimizationLevel);
+		}
+		
+		return cx;
+	}
+	
+	/**
+	 * Removes the context which is kept for the engine, so the next entry creates new context.
+	 */
+	public void releaseEngineContext() {
+		engineContext = null;
+	}
+	
+	/**
+	 * Removes the context which is kept for the current thread, so the next entry creates new context.
+	 */
+	public void releaseThreadContext() {
+		threadContexts.remove();
+	}
+	
+	/**
+	 * Returns cache of the class members that is shared by all contexts created by this factory.
+	 * 
+	 * @return Cache of the class members.
+	 */
+	public HostedClassMembersCache getClassMembersCache() {
+		return classMembersCache;
 	}
 	
 	@Override
@@ -73,16 +164,86 @@ public class JavaScriptContextFactory extends ContextFactory {
 		}
 	}
 	
+	/**
+	 * Checks the budget usage of the running script, if there is any.
+	 * 
+	 * @throws ScriptBudgetExceededError Thrown if the running script exceeded its budget.
+	 */
+	@Override
+	protected void observeInstructionCount(Context cx, int instructionCount) {
+		ScriptBudgetUsage usage = (ScriptBudgetUsage)cx.getThreadLocal(BUDGET_USAGE_KEY);
+		
+		if (usage != null) {
+			usage.observe(instructionCount);
+		}
+	}
+	
 	@Override
 	protected Context makeContext() {
 		Context cx = super.makeContext();
 		
-		WrapFactoryDecorator wrapFactoryDecorator = new DefaultWrapFactoryDecorator(membersResolverFactory);
-		wrapFactoryDecorator = new CollectionsWrapFactoryDecorator(membersResolverFactory, wrapFactoryDecorator);
-		wrapFactoryDecorator = new AdapterWrapFactoryDecorator(adapterRegistry, wrapFactoryDecorator);
-
 		cx.setWrapFactory(wrapFactoryDecorator);
+		cx.setOptimizationLevel(scriptEngine.getOptimizationLevel());
+		
+		return cx;
+	}
+	
+	/**
+	 * Enters the context of the current thread. If this thread has already
+	 * created some context using this factory, then it is reused.
+	 * 
+	 * @return Entered context.
+	 */
+	protected Context enterThreadContext() {
+		Context cx = threadContexts.get();
+		
+		if (cx != null && Context.getCurrentContext() == null) {
+			return enterContext(cx);
+		}
+		
+		cx = super.enterContext();
+		
+		if (threadContexts.get() == null && cx.getFactory() == this) {
+			threadContexts.set(cx);
+		}
+		
+		return cx;
+	}
+	
+	/**
+	 * Enters the context of the engine. The context is not bound to any thread,
+	 * so it is entered by whichever thread currently uses the engine.
+	 * 
+	 * @return Entered context.
+	 */
+	protected Context enterEngineContext() {
+		Context cx = engineContext;
+		
+		if (cx != null && Context.getCurrentContext() == null) {
+			return enterContext(cx);
+		}
+		
+		cx = super.enterContext();
+		
+		if (engineContext == null && cx.getFactory() == this) {
+			engineContext = cx;
+		}
 		
 		return cx;
 	}
+	
+	/**
+	 * Creates the wrap factory chain which is shared by all contexts of this factory.
+	 * 
+	 * @return Top wrap factory decorator.
+	 */
+	protected WrapFactoryDecorator createWrapFactoryDecorator() {
+		WrapFactoryDecorator wrapFactoryDecorator = new DefaultWrapFactoryDecorator(null, classMembersCache);
+		wrapFactoryDecorator = new CollectionsWrapFactoryDecorator(classMembersCache, wrapFactoryDecorator);
+		wrapFactoryDecorator = new ByteBufferWrapFactoryDecorator(wrapFactoryDecorator);
+		wrapFactoryDecorator = new AdapterWrapFactoryDecorator(adapterRegistry, wrapFactoryDecorator);
+		wrapFactoryDecorator = new MetricsWrapFactoryDecorator(wrapFactoryDecorator);
+		
+		return wrapFactoryDecorator;
+	}
 }
@@ -19,6 +19,7 @@
 
 package com.jsen.javascript;
 
+import java.io.IOException;
 import java.io.Reader;
 import java.io.StringReader;
 
@@ -27,8 +28,8 @@ import javax.script.Compilable;
 import javax.script.CompiledScript;
 import javax.script.Invocable;
 import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
 import javax.script.ScriptException;
-import javax.script.SimpleBindings;
 
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
@@ -49,6 +50,8 @@ import com.jsen.core.reflect.ClassMembersResolverFactory;
 import com.jsen.core.reflect.DefaultShutter;
 import com.jsen.javascript.java.ObjectScriptable;
 import com.jsen.javascript.java.ObjectTopLevel;
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
 
 /**
  * JavaScript engine for the browser. It implements the Window object into 
@@ -70,7 +73,17 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 
 	protected ContextFactory contextFactory;
 	protected TopLevel topLevel;
-	protected Scriptable runtimeScope;
+	protected ScriptContextScriptable runtimeScope;
+	protected ScriptContextScriptable lastExecutionScope;
+	protected boolean sharedStandardObjects;
+	protected ScriptCache scriptCache;
+	protected ScriptBytecodeCache bytecodeCache;
+	protected volatile int optimizationLevel;
+	protected volatile int adaptiveCompileThreshold;
+	protected volatile JavaScriptContextFactory.ContextBinding contextBinding;
+	protected volatile ScriptBudget budget;
+	protected ScriptRegistry scriptRegistry;
+	protected ScriptValueConverter valueConverter;
 	
 	/**
 	 * Constructs window JavaScript engine for the given settings and that was constructed using passed factory.
@@ -93,45 +106,315 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		super(factory, scriptSettings, (scriptSettings != null)? scriptSettings.getGlobalObject() : null);
 		
 		this.contextFactory = (contextFactory != null)? contextFactory : new JavaScriptContextFactory(this);
+		this.sharedStandardObjects = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).isSharedStandardObjects() : false;
+		this.scriptCache = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getScriptCache() : null;
+		this.bytecodeCache = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getBytecodeCache() : null;
+		this.optimizationLevel = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getOptimizationLevel() : JavaScriptEngineFactory.DEFAULT_OPTIMIZATION_LEVEL;
+		this.adaptiveCompileThreshold = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getAdaptiveCompileThreshold() : 0;
+		this.contextBinding = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getContextBinding() : JavaScriptContextFactory.ContextBinding.THREAD;
+		this.budget = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getBudget() : null;
+		this.scriptRegistry = (factory instanceof JavaScriptEngineFactory)? ((JavaScriptEngineFactory)factory).getScriptRegistry() : null;
+		this.valueConverter = new ScriptValueConverter();
 
 		this.topLevel = initializeTopLevel();
+		
+		Bindings engineBindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+		if (engineBindings == null || (engineBindings.isEmpty() && !(engineBindings instanceof ConcurrentBindings))) {
+			context.setBindings(createBindings(), ScriptContext.ENGINE_SCOPE);
+		}
 	}
 		
 	@Override
 	public Object eval(Reader reader, ScriptContext context) throws ScriptException {
+		return eval(reader, context, budget);
+	}
+
+	@Override
+	public Object eval(String script, ScriptContext context) throws ScriptException {
+		return eval(new StringReader(script) , context);
+	}
+	
+	/**
+	 * Evaluates the script with the passed name in the default context of this engine.
+	 * 
+	 * @param reader Reader of the script source.
+	 * @param scriptName Logical name of the script, e.g. its URL.
+	 * @return Unwrapped value of the script.
+	 * @throws ScriptException Thrown if the script fails.
+	 */
+	public Object eval(Reader reader, String scriptName) throws ScriptException {
+		return eval(new NamedScriptReader(reader, scriptName), context);
+	}
+	
+	/**
+	 * Evaluates the script with the passed name in the default context of this engine.
+	 * 
+	 * @param script Script source.
+	 * @param scriptName Logical name of the script, e.g. its URL.
+	 * @return Unwrapped value of the script.
+	 * @throws ScriptException Thrown if the script fails.
+	 */
+	public Object eval(String script, String scriptName) throws ScriptException {
+		return eval(new NamedScriptReader(script, scriptName), context);
+	}
+	
+	/**
+	 * Evaluates the script with the passed budget instead of the budget of this engine.
+	 * 
+	 * @param reader Reader of the script source.
+	 * @param context Script context of the evaluation.
+	 * @param budget Budget of this evaluation, null for no limits.
+	 * @return Unwrapped value of the script.
+	 * @throws ScriptException Thrown if the script fails, it is ScriptBudgetException if the script exceeds its budget.
+	 */
+	public Object eval(Reader reader, ScriptContext context, ScriptBudget budget) throws ScriptException {
 		Object ret = null;
+		String filename = getFilenameFromReader(reader, context);
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		long startTime = (measured)? System.nanoTime() : 0;
+		String previousScriptName = (measured)? EngineMetrics.enterScript(filename) : null;
+		boolean failed = true;
 
-		Context cx = enterContext();
+		Context cx = enterContext(budget);
 		try {
 			Scriptable executionScope = getExecutionScope(context);
-			String filename = getFilenameFromReader(reader);
-			ret = cx.evaluateReader(executionScope, reader, filename, 1,  null);
+			Script script = compileScript(cx, reader, filename);
+			long executionStartTime = (scriptRegistry != null)? System.nanoTime() : 0;
+			
+			try {
+				ret = script.exec(cx, executionScope);
+				failed = false;
+			} finally {
+				if (scriptRegistry != null) {
+					scriptRegistry.recordExecution(filename, System.nanoTime() - executionStartTime, failed);
+				}
+			}
+		} catch (ScriptBudgetExceededError err) {
+			throw new ScriptBudgetException(err);
 		} catch (Exception ex) {
 			throwWrappedScriptException(ex);
 		} finally {
 			exitContext();
+			
+			if (measured) {
+				EngineMetrics.exitScript(previousScriptName);
+				metrics.record(ScriptMetrics.Operation.EVAL, filename, System.nanoTime() - startTime, failed);
+			}
 		}
 
 		return unwrap(ret);
 	}
-
-	@Override
-	public Object eval(String script, ScriptContext context) throws ScriptException {
-		return eval(new StringReader(script) , context);
+	
+	/**
+	 * Evaluates the script with the passed budget instead of the budget of this engine.
+	 * 
+	 * @param script Script source.
+	 * @param context Script context of the evaluation.
+	 * @param budget Budget of this evaluation, null for no limits.
+	 * @return Unwrapped value of the script.
+	 * @throws ScriptException Thrown if the script fails, it is ScriptBudgetException if the script exceeds its budget.
+	 */
+	public Object eval(String script, ScriptContext context, ScriptBudget budget) throws ScriptException {
+		return eval(new StringReader(script), context, budget);
 	}
 
 	@Override
 	public Bindings createBindings() {
-		return new SimpleBindings();
+		return new ConcurrentBindings();
 	}
 
+	/**
+	 * Returns cache of the compiled scripts used by this engine.
+	 * 
+	 * @return Cache of the compiled scripts or null if the scripts are not cached.
+	 */
+	public ScriptCache getScriptCache() {
+		return scriptCache;
+	}
+	
+	/**
+	 * Sets cache of the compiled scripts used by this engine.
+	 * 
+	 * @param scriptCache Cache of the compiled scripts, null disables caching.
+	 */
+	public void setScriptCache(ScriptCache scriptCache) {
+		this.scriptCache = scriptCache;
+	}
+	
+	/**
+	 * Returns registry of the scripts run by this engine.
+	 * 
+	 * @return Script registry or null if the scripts are not registered.
+	 */
+	public ScriptRegistry getScriptRegistry() {
+		return scriptRegistry;
+	}
+	
+	/**
+	 * Sets registry of the scripts run by this engine.
+	 * 
+	 * @param scriptRegistry Script registry, null disables registering.
+	 */
+	public void setScriptRegistry(ScriptRegistry scriptRegistry) {
+		this.scriptRegistry = scriptRegistry;
+	}
+	
+	/**
+	 * Returns converter which is used for the bulk conversions between the script and Java values.
+	 * 
+	 * @return Value converter of this engine.
+	 */
+	public ScriptValueConverter getValueConverter() {
+		return valueConverter;
+	}
+	
+	/**
+	 * Sets converter which is used for the bulk conversions between the script and Java values.
+	 * 
+	 * @param valueConverter New value converter.
+	 */
+	public void setValueConverter(ScriptValueConverter valueConverter) {
+		this.valueConverter = valueConverter;
+	}
+	
+	/**
+	 * Converts script value, e.g. returned script array or object, into Java lists, maps and arrays in one pass.
+	 * 
+	 * @param value Script value to be converted.
+	 * @return Converted Java value.
+	 * @see ScriptValueConverter#toJava(Object)
+	 */
+	public Object convertToJava(Object value) {
+		enterContext();
+		try {
+			return valueConverter.toJava(value);
+		} finally {
+			exitContext();
+		}
+	}
+	
+	/**
+	 * Converts Java lists, maps and arrays into script arrays and objects in one pass.
+	 * 
+	 * @param value Java value to be converted.
+	 * @return Converted script value, which has the top level scope of this engine as its scope.
+	 * @see ScriptValueConverter#toScript(Context, Scriptable, Object)
+	 */
+	public Object convertToScript(Object value) {
+		Context cx = enterContext();
+		try {
+			return valueConverter.toScript(cx, topLevel, value);
+		} finally {
+			exitContext();
+		}
+	}
+	
+	/**
+	 * Returns optimization level of the contexts of this engine.
+	 * 
+	 * @return Optimization level, -1 for the interpreter or 0 to 9 for the compiler.
+	 */
+	public int getOptimizationLevel() {
+		return optimizationLevel;
+	}
+	
+	/**
+	 * Sets optimization level of the contexts of this engine.
+	 * 
+	 * @param optimizationLevel Optimization level, -1 for the interpreter or 0 to 9 for the compiler.
+	 */
+	public void setOptimizationLevel(int optimizationLevel) {
+		if (!Context.isValidOptimizationLevel(optimizationLevel)) {
+			throw new IllegalArgumentException("Optimization level must be in range -1 to 9");
+		}
+		
+		this.optimizationLevel = optimizationLevel;
+	}
+	
+	/**
+	 * Returns number of the executions after which are the interpreted scripts compiled.
+	 * 
+	 * @return Number of the executions before compiling, zero if the adaptive mode is disabled.
+	 */
+	public int getAdaptiveCompileThreshold() {
+		return adaptiveCompileThreshold;
+	}
+	
+	/**
+	 * Sets adaptive mode in which the scripts are interpreted at first and they are compiled
+	 * with the optimization level of this engine after the passed number of the executions.
+	 * Adaptive mode has no effect if the optimization level is -1.
+	 * 
+	 * @param adaptiveCompileThreshold Number of the executions before compiling, zero disables the adaptive mode.
+	 */
+	public void setAdaptiveCompileThreshold(int adaptiveCompileThreshold) {
+		this.adaptiveCompileThreshold = Math.max(adaptiveCompileThreshold, 0);
+	}
+	
+	/**
+	 * Returns to what is bound the context of this engine.
+	 * 
+	 * @return Context binding of this engine.
+	 */
+	public JavaScriptContextFactory.ContextBinding getContextBinding() {
+		return contextBinding;
+	}
+	
+	/**
+	 * Sets to what should be bound the context of this engine.
+	 * 
+	 * @param contextBinding New context binding of this engine.
+	 */
+	public void setContextBinding(JavaScriptContextFactory.ContextBinding contextBinding) {
+		this.contextBinding = (contextBinding != null)? contextBinding : JavaScriptContextFactory.ContextBinding.THREAD;
+	}
+	
+	/**
+	 * Returns default budget of every invocation of this engine.
+	 * 
+	 * @return Default budget or null if the invocations are not limited.
+	 */
+	public ScriptBudget getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Sets default budget of every invocation of this engine. Budget is checked only
+	 * by the contexts of JavaScriptContextFactory.
+	 * 
+	 * @param budget Default budget, null for no limits.
+	 */
+	public void setBudget(ScriptBudget budget) {
+		this.budget = budget;
+	}
+	
 	/**
 	 * Enters new context.
 	 * 
 	 * @return New entered context.
 	 */
 	public Context enterContext() {
-		return contextFactory.enterContext();
+		return enterContext(budget);
+	}
+	
+	/**
+	 * Enters new context, which limits the invocation by the passed budget. Budget is applied
+	 * only if the current thread is not already running inside some context, nested entries
+	 * are limited by the budget of the outermost entry.
+	 * 
+	 * @param budget Budget of the invocation, null for no limits.
+	 * @return New entered context.
+	 */
+	public Context enterContext(ScriptBudget budget) {
+		boolean outermost = Context.getCurrentContext() == null;
+		Context cx = contextFactory.enterContext();
+		
+		if (outermost) {
+			startBudgetUsage(cx, budget);
+		}
+		
+		return cx;
 	}
 	
 	/**
@@ -153,14 +436,62 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		return invoke(null, name, args);
 	}
 
+	/**
+	 * Resolves the global function with the passed name into handle, which can be called repeatedly.
+	 * 
+	 * @param name Name of the function.
+	 * @return Handle of the resolved function.
+	 * @throws ScriptException Thrown if the resolving of the function fails.
+	 * @throws NoSuchMethodException Thrown if there is no function with the passed name.
+	 */
+	public JavaScriptFunction lookupFunction(String name) throws ScriptException, NoSuchMethodException {
+		return lookupFunction(null, name);
+	}
+	
+	/**
+	 * Calls the global function with the passed name for every passed arguments inside one context entry.
+	 * 
+	 * @param name Name of the function.
+	 * @param argsList Arguments of the particular calls.
+	 * @param callback Callback which receives the result or the error of every call.
+	 * @return Number of the calls which failed.
+	 * @throws ScriptException Thrown if the resolving of the function fails.
+	 * @throws NoSuchMethodException Thrown if there is no function with the passed name.
+	 * @see JavaScriptFunction#callBatch(Iterable, BatchCallback)
+	 */
+	public int invokeFunctionBatch(String name, Iterable<Object[]> argsList, BatchCallback callback) throws ScriptException, NoSuchMethodException {
+		return lookupFunction(null, name).callBatch(argsList, callback);
+	}
+	
+	/**
+	 * Resolves the method of the passed script object into handle, which can be called repeatedly.
+	 * 
+	 * @param thiz Script object which contains the method.
+	 * @param name Name of the method.
+	 * @return Handle of the resolved method.
+	 * @throws ScriptException Thrown if the resolving of the method fails.
+	 * @throws NoSuchMethodException Thrown if there is no method with the passed name.
+	 */
+	public JavaScriptFunction lookupMethod(Object thiz, String name) throws ScriptException, NoSuchMethodException {
+		if (thiz == null) {
+			throw new IllegalArgumentException("Script object cannot be null");
+		}
+		
+		return lookupFunction(thiz, name);
+	}
+	
 	@Override
 	public <T> T getInterface(Class<T> clasz) {
-		throw new UnsupportedOperationException("getInterface() is not implemented yet!");
+		return createInterface(null, clasz);
 	}
 
 	@Override
 	public <T> T getInterface(Object thiz, Class<T> clasz) {
-		throw new UnsupportedOperationException("getInterface() is not implemented yet!");
+		if (thiz == null) {
+			throw new IllegalArgumentException("Script object cannot be null");
+		}
+		
+		return createInterface(thiz, clasz);
 	}
 	
 	@Override
@@ -168,20 +499,53 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		return compile(new StringReader(script));
 	}
 
+	/**
+	 * Compiles the script with the passed name.
+	 * 
+	 * @param script Script source.
+	 * @param scriptName Logical name of the script, e.g. its URL.
+	 * @return Compiled script.
+	 * @throws ScriptException Thrown if the compiling fails.
+	 */
+	public CompiledScript compile(String script, String scriptName) throws ScriptException {
+		return compile(new NamedScriptReader(script, scriptName));
+	}
+	
+	/**
+	 * Compiles the script with the passed name.
+	 * 
+	 * @param script Reader of the script source.
+	 * @param scriptName Logical name of the script, e.g. its URL.
+	 * @return Compiled script.
+	 * @throws ScriptException Thrown if the compiling fails.
+	 */
+	public CompiledScript compile(Reader script, String scriptName) throws ScriptException {
+		return compile(new NamedScriptReader(script, scriptName));
+	}
+
 	@Override
 	public CompiledScript compile(Reader script) throws ScriptException {
 		CompiledScript compiledScript = null;
+		String filename = getFilenameFromReader(script, context);
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		long startTime = (measured)? System.nanoTime() : 0;
+		boolean failed = true;
 		
 		Context cx = enterContext();
 
 		try {
-			String filename = getFilenameFromReader(script);
-			Script rhinoScript = cx.compileReader(script, filename, 1, null);
-			compiledScript = new CompiledJavaScript(this, rhinoScript);
+			Script rhinoScript = compileScript(cx, script, filename);
+			compiledScript = new CompiledJavaScript(this, rhinoScript, filename);
+			failed = false;
 		} catch (Exception e) {
 			throwWrappedScriptException(e);
 		} finally {
 			exitContext();
+			
+			if (measured) {
+				metrics.record(ScriptMetrics.Operation.COMPILE, filename, System.nanoTime() - startTime, failed);
+			}
 		}
 		
 		return compiledScript;
@@ -194,6 +558,16 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 	 * @throws ScriptException Thrown always by this method.
 	 */
 	public static void throwWrappedScriptException(Exception ex) throws ScriptException {
+		throw wrapScriptException(ex);
+	}
+	
+	/**
+	 * Wraps given exception into ScriptException.
+	 * 
+	 * @param ex Exception to be wrapped.
+	 * @return Script exception which wraps the passed exception.
+	 */
+	public static ScriptException wrapScriptException(Exception ex) {
 		if ( ex instanceof RhinoException) {
 			RhinoException rhinoException = (RhinoException)ex;
 			int line = rhinoException.lineNumber();
@@ -208,9 +582,9 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 			
 			ScriptException scriptException = new ScriptException(message, rhinoException.sourceName(), line, column);
 			scriptException.initCause(ex);
-			throw scriptException;
+			return scriptException;
 		} else {
-			throw new ScriptException(ex);
+			return new ScriptException(ex);
 		} 
 	}
 	
@@ -309,6 +683,14 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		if (object == null) {
 			TopLevel topLevel = new TopLevel();
 			
+			if (sharedStandardObjects) {
+				topLevel.setPrototype(ObjectTopLevel.getSharedStandardObjects());
+				topLevel.setParentScope(null);
+				topLevel.cacheBuiltins();
+				
+				return topLevel;
+			}
+			
 			Context cx = enterContext();
 			try {
 				cx.initStandardObjects(topLevel, true);
@@ -319,24 +701,138 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 			return topLevel;
 		}
 
-		return new ObjectTopLevel(object, this);
+		return new ObjectTopLevel(object, this, null, sharedStandardObjects);
+	}
+	
+	/**
+	 * Returns scope for running the scripts. Scope of the default context of this engine
+	 * and scope of the most recently passed other context are reused, for any other
+	 * context is created new lightweight scope above the top level scope.
+	 * 
+	 * @param context Script context to be included into top level scope.
+	 * @return Scope constructed from the top level scope and wrapped script context scope.
+	 */
+	protected Scriptable getExecutionScope(ScriptContext context) {
+		ScriptContextScriptable scope = runtimeScope;
+		
+		if (scope != null && scope.getContext() == context) {
+			return scope;
+		}
+		
+		scope = lastExecutionScope;
+		
+		if (scope != null && scope.getContext() == context) {
+			return scope;
+		}
+		
+		scope = createExecutionScope(context);
+		
+		if (context == this.context && runtimeScope == null) {
+			runtimeScope = scope;
+		} else {
+			lastExecutionScope = scope;
+		}
+		
+		return scope;
 	}
 	
 	/**
-	 * Returns scope for running the scripts.
+	 * Creates new scope for running the scripts with the passed context. Scope holds only
+	 * the reference to the context and the top level scope, so it is cheap to create it per call.
 	 * 
 	 * @param context Script context to be included into top level scope.
 	 * @return New scope constructed from the top level scope and wrapped script context scope.
 	 */
-	protected Scriptable getExecutionScope(ScriptContext context) {		
-		if (runtimeScope == null) {
-			runtimeScope = new ScriptContextScriptable(context);
+	public ScriptContextScriptable createExecutionScope(ScriptContext context) {
+		return new ScriptContextScriptable(context, topLevel);
+	}
+	
+	/**
+	 * Compiles the script from the passed reader, or returns already compiled script from the script cache.
+	 * 
+	 * @param cx Entered context.
+	 * @param reader Reader of the script source.
+	 * @param filename Name of the script source.
+	 * @return Compiled script.
+	 * @throws IOException Thrown if the reading of the source fails.
+	 */
+	protected Script compileScript(Context cx, Reader reader, String filename) throws IOException {
+		if (scriptCache == null && bytecodeCache == null && scriptRegistry == null && !isAdaptiveCompile(cx)) {
+			return cx.compileReader(reader, filename, 1, null);
+		}
+		
+		String source = readSource(reader);
+		
+		if (scriptCache == null) {
+			return registerSource(cx, source, filename);
+		}
+		
+		ScriptCache.ScriptKey key = scriptCache.createKey(cx, source, filename);
+		Script script = scriptCache.getScript(key);
+		
+		if (script == null) {
+			script = registerSource(cx, source, filename);
+			scriptCache.putScript(key, script);
+		}
+		
+		return script;
+	}
+	
+	private Script registerSource(Context cx, String source, String filename) {
+		if (scriptRegistry == null) {
+			return compileSource(cx, source, filename);
+		}
+		
+		long startTime = System.nanoTime();
+		Script script = compileSource(cx, source, filename);
+		scriptRegistry.recordCompile(filename, source.length(), System.nanoTime() - startTime);
+		
+		return script;
+	}
+	
+	/**
+	 * Compiles the passed script source, or loads its class files from the bytecode cache.
+	 * 
+	 * @param cx Entered context.
+	 * @param source Source of the script.
+	 * @param filename Name of the script source.
+	 * @return Compiled script.
+	 */
+	protected Script compileSource(Context cx, String source, String filename) {
+		if (isAdaptiveCompile(cx)) {
+			int contextOptimizationLevel = cx.getOptimizationLevel();
+			Script interpretedScript;
+			
+			try {
+				cx.setOptimizationLevel(-1);
+				interpretedScript = cx.compileString(source, filename, 1, null);
+			} finally {
+				cx.setOptimizationLevel(contextOptimizationLevel);
+			}
 			
-			runtimeScope.setPrototype(topLevel);
-			runtimeScope.setParentScope(null);
+			return new AdaptiveScript(interpretedScript, source, filename, adaptiveCompileThreshold, contextOptimizationLevel, bytecodeCache);
 		}
 		
-		return runtimeScope;
+		Script script = (bytecodeCache != null)? bytecodeCache.getScript(cx, source, filename) : null;
+		return (script != null)? script : cx.compileString(source, filename, 1, null);
+	}
+	
+	private static void startBudgetUsage(Context cx, ScriptBudget budget) {
+		/* Code compiled inside this entry counts the instructions only if the entry has some budget */
+		int threshold = (budget != null)? JavaScriptContextFactory.INSTRUCTION_OBSERVER_THRESHOLD : 0;
+		if (cx.getInstructionObserverThreshold() != threshold) {
+			cx.setInstructionObserverThreshold(threshold);
+		}
+		
+		if (budget != null && !budget.isUnlimited()) {
+			cx.putThreadLocal(JavaScriptContextFactory.BUDGET_USAGE_KEY, new ScriptBudgetUsage(budget));
+		} else {
+			cx.removeThreadLocal(JavaScriptContextFactory.BUDGET_USAGE_KEY);
+		}
+	}
+	
+	private boolean isAdaptiveCompile(Context cx) {
+		return adaptiveCompileThreshold > 0 && cx.getOptimizationLevel() >= 0;
 	}
 	
 	/**
@@ -357,45 +853,40 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		return value;
 	}
 
-	private Object invoke(Object thiz, String name, Object... args) throws ScriptException, NoSuchMethodException {
-		Object ret = null;
+	private <T> T createInterface(Object thiz, Class<T> clasz) {
 		Context cx = enterContext();
 		try {
-			Scriptable executionScope = getExecutionScope(context);
-			Scriptable functionScope = null;
+			Scriptable thisObject;
 			
 			if (thiz == null) {
-				functionScope = executionScope;
+				thisObject = getExecutionScope(context);
+			} else if (thiz instanceof Scriptable) {
+				thisObject = (Scriptable)thiz;
 			} else {
-				if (!(thiz instanceof Scriptable)) {
-					thiz = Context.toObject(thiz, topLevel);
-				}
-				functionScope = (Scriptable) thiz;
+				thisObject = Context.toObject(thiz, topLevel);
 			}
-
-			Function function = null;
 			
-			if (name != null && !name.isEmpty()) {
-				Object objectProperty = ObjectScriptable.getProperty(functionScope, name);
-				if (!(objectProperty instanceof Function)) {
-					throw new NoSuchMethodException("Function not found!");
-				}
-
-				function = (Function) objectProperty;
-			} else if (thiz instanceof Function) {
-				function = (Function)thiz;
-			} else {
-				throw new NoSuchMethodException("Passed function name is empty and passed thiz object is not function!");
-			}
-	 
+			return JavaScriptInterface.create(this, thisObject, clasz);
+		} finally {
+			exitContext();
+		}
+	}
+	
+	/*
+	 * Function is resolved and called inside one context entry and without creating its handle.
+	 */
+	private Object invoke(Object thiz, String name, Object... args) throws ScriptException, NoSuchMethodException {
+		Object ret = null;
+		
+		Context cx = enterContext();
+		try {
+			Scriptable functionScope = resolveFunctionScope(thiz);
+			Function function = resolveFunction(functionScope, thiz, name);
 			Scriptable parentScope = function.getParentScope();
-			if (parentScope == null) {
-				parentScope = functionScope;
-			}
+			parentScope = (parentScope != null)? parentScope : functionScope;
 			
-			Object[] callArgs = javaToJS(args, topLevel);
-			ret = function.call(cx, parentScope, functionScope, callArgs);
-		} catch (Exception ex) {
+			ret = JavaScriptFunction.callFunction(this, cx, function, parentScope, functionScope, args);
+		} catch (RuntimeException ex) {
 			throwWrappedScriptException(ex);
 		} finally {
 			exitContext();
@@ -404,18 +895,74 @@ public class JavaScriptEngine<GlobalObject> extends GlobalObjectScriptEngine<Glo
 		return unwrap(ret);
 	}
 	
-	private String getFilenameFromReader(Reader reader) {
-		String filename = "<inline script>";
-		/*if (reader instanceof ResourceReader) {
-			ResourceReader resourceScript = (ResourceReader)reader;
-			URL url = resourceScript.getURL();
+	private JavaScriptFunction lookupFunction(Object thiz, String name) throws ScriptException, NoSuchMethodException {
+		JavaScriptFunction function = null;
+		
+		enterContext();
+		try {
+			Scriptable functionScope = resolveFunctionScope(thiz);
+			function = new JavaScriptFunction(this, resolveFunction(functionScope, thiz, name), functionScope);
+		} catch (RuntimeException ex) {
+			throwWrappedScriptException(ex);
+		} finally {
+			exitContext();
+		}
+		
+		return function;
+	}
+	
+	private Scriptable resolveFunctionScope(Object thiz) {
+		if (thiz == null) {
+			return getExecutionScope(context);
+		} else if (thiz instanceof Scriptable) {
+			return (Scriptable)thiz;
+		}
+		
+		return Context.toObject(thiz, topLevel);
+	}
+	
+	private Function resolveFunction(Scriptable functionScope, Object thiz, String name) throws NoSuchMethodException {
+		Function function = null;
+		
+		if (name != null && !name.isEmpty()) {
+			Object objectProperty = ObjectScriptable.getProperty(functionScope, name);
+			if (!(objectProperty instanceof Function)) {
+				throw new NoSuchMethodException("Function not found!");
+			}
+
+			function = (Function) objectProperty;
+		} else if (thiz instanceof Function) {
+			function = (Function)thiz;
+		} else {
+			throw new NoSuchMethodException("Passed function name is empty and passed thiz object is not function!");
+		}
+		
+		return function;
+	}
+	
+	private static String readSource(Reader reader) throws IOException {
+		StringBuilder source = new StringBuilder();
+		char[] buffer = new char[4096];
+		int read;
+		
+		while ((read = reader.read(buffer)) != -1) {
+			source.append(buffer, 0, read);
+		}
+		
+		return source.toString();
+	}
+	
+	private String getFilenameFromReader(Reader reader, ScriptContext context) {
+		if (reader instanceof NamedScriptReader) {
+			String scriptName = ((NamedScriptReader)reader).getScriptName();
 			
-			if (url != null) {
-				filename = url.toExternalForm();
+			if (scriptName != null) {
+				return scriptName;
 			}
-		}*/
+		}
 		
-		return filename;
+		Object filenameAttribute = (context != null)? context.getAttribute(ScriptEngine.FILENAME) : null;
+		return (filenameAttribute != null)? filenameAttribute.toString() : "<inline script>";
 	}
 
 }
@@ -19,10 +19,13 @@
 
 package com.jsen.javascript;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import org.mozilla.javascript.Context;
+
 import com.jsen.core.AbstractScriptEngine;
 import com.jsen.core.AbstractScriptEngineFactory;
 import com.jsen.core.GlobalObjectScriptSettings;
@@ -58,6 +61,20 @@ public class JavaScriptEngineFactory extends AbstractScriptEngineFactory {
 	private static final String ENGINE_VERSION = "0.9";
 	private static final String LANGUAGE_NAME = "ECMAScript";
 	private static final String LANGUAGE_VERSION = "1.8";
+	
+	/**
+	 * Default optimization level of the engines, it is the default level of Rhino.
+	 */
+	public static final int DEFAULT_OPTIMIZATION_LEVEL = 0;
+	
+	private volatile boolean sharedStandardObjects;
+	private volatile int optimizationLevel = DEFAULT_OPTIMIZATION_LEVEL;
+	private volatile int adaptiveCompileThreshold;
+	private volatile JavaScriptContextFactory.ContextBinding contextBinding = JavaScriptContextFactory.ContextBinding.THREAD;
+	private volatile ScriptBudget budget;
+	private volatile ScriptCache scriptCache;
+	private volatile ScriptBytecodeCache bytecodeCache;
+	private volatile ScriptRegistry scriptRegistry;
 		
 	public JavaScriptEngineFactory() {
 		registerScriptContextsInject(new ClassObjectsInjector());
@@ -80,6 +97,227 @@ public class JavaScriptEngineFactory extends AbstractScriptEngineFactory {
 		return null;
 	}
 
+	/**
+	 * Tests whether the created engines share the sealed standard objects.
+	 * 
+	 * @return True if the created engines share the sealed standard objects, otherwise false.
+	 */
+	public boolean isSharedStandardObjects() {
+		return sharedStandardObjects;
+	}
+	
+	/**
+	 * Sets whether the engines created after this call should share the standard objects.
+	 * Shared standard objects are initialized only once per JVM and sealed, so the engine creation
+	 * is cheaper, but scripts cannot modify the builtin objects and their prototypes.
+	 * 
+	 * @param sharedStandardObjects True if the created engines should share the standard objects.
+	 */
+	public void setSharedStandardObjects(boolean sharedStandardObjects) {
+		this.sharedStandardObjects = sharedStandardObjects;
+	}
+	
+	/**
+	 * Returns cache of the compiled scripts which is shared by the created engines.
+	 * 
+	 * @return Cache of the compiled scripts or null if the scripts are not cached.
+	 */
+	public ScriptCache getScriptCache() {
+		return scriptCache;
+	}
+	
+	/**
+	 * Sets cache of the compiled scripts which is shared by the engines created after this call.
+	 * 
+	 * @param scriptCache Cache of the compiled scripts, null disables caching.
+	 */
+	public void setScriptCache(ScriptCache scriptCache) {
+		this.scriptCache = scriptCache;
+	}
+	
+	/**
+	 * Returns registry of the scripts which is shared by the created engines.
+	 * 
+	 * @return Script registry or null if the scripts are not registered.
+	 */
+	public ScriptRegistry getScriptRegistry() {
+		return scriptRegistry;
+	}
+	
+	/**
+	 * Sets registry of the scripts which is shared by the engines created after this call.
+	 * 
+	 * @param scriptRegistry Script registry, null disables registering.
+	 */
+	public void setScriptRegistry(ScriptRegistry scriptRegistry) {
+		this.scriptRegistry = scriptRegistry;
+	}
+	
+	/**
+	 * Returns persistent cache of the class files of the compiled scripts.
+	 * 
+	 * @return Bytecode cache or null if the class files are not stored.
+	 */
+	public ScriptBytecodeCache getBytecodeCache() {
+		return bytecodeCache;
+	}
+	
+	/**
+	 * Sets directory into which the engines created after this call store the class files of the
+	 * compiled scripts, and from which they load them instead of compiling after restart.
+	 * 
+	 * @param directory Cache directory, null disables the bytecode cache.
+	 */
+	public void setBytecodeCacheDirectory(File directory) {
+		this.bytecodeCache = (directory != null)? new ScriptBytecodeCache(directory) : null;
+	}
+	
+	/**
+	 * Returns optimization level of the created engines.
+	 * 
+	 * @return Optimization level, -1 for the interpreter or 0 to 9 for the compiler.
+	 * @see JavaScriptEngine#getOptimizationLevel()
+	 */
+	public int getOptimizationLevel() {
+		return optimizationLevel;
+	}
+	
+	/**
+	 * Sets optimization level of the engines created after this call.
+	 * 
+	 * @param optimizationLevel Optimization level, -1 for the interpreter or 0 to 9 for the compiler.
+	 * @see JavaScriptEngine#setOptimizationLevel(int)
+	 */
+	public void setOptimizationLevel(int optimizationLevel) {
+		if (!Context.isValidOptimizationLevel(optimizationLevel)) {
+			throw new IllegalArgumentException("Optimization level must be in range -1 to 9");
+		}
+		
+		this.optimizationLevel = optimizationLevel;
+	}
+	
+	/**
+	 * Returns adaptive compile threshold of the created engines.
+	 * 
+	 * @return Number of the executions before compiling, zero if the adaptive mode is disabled.
+	 * @see JavaScriptEngine#getAdaptiveCompileThreshold()
+	 */
+	public int getAdaptiveCompileThreshold() {
+		return adaptiveCompileThreshold;
+	}
+	
+	/**
+	 * Sets adaptive compile threshold of the engines created after this call.
+	 * 
+	 * @param adaptiveCompileThreshold Number of the executions before compiling, zero disables the adaptive mode.
+	 * @see JavaScriptEngine#setAdaptiveCompileThreshold(int)
+	 */
+	public void setAdaptiveCompileThreshold(int adaptiveCompileThreshold) {
+		this.adaptiveCompileThreshold = Math.max(adaptiveCompileThreshold, 0);
+	}
+	
+	/**
+	 * Returns context binding of the created engines.
+	 * 
+	 * @return Context binding of the created engines.
+	 * @see JavaScriptEngine#getContextBinding()
+	 */
+	public JavaScriptContextFactory.ContextBinding getContextBinding() {
+		return contextBinding;
+	}
+	
+	/**
+	 * Sets context binding of the engines created after this call.
+	 * 
+	 * @param contextBinding Context binding of the created engines.
+	 * @see JavaScriptEngine#setContextBinding(JavaScriptContextFactory.ContextBinding)
+	 */
+	public void setContextBinding(JavaScriptContextFactory.ContextBinding contextBinding) {
+		this.contextBinding = (contextBinding != null)? contextBinding : JavaScriptContextFactory.ContextBinding.THREAD;
+	}
+	
+	/**
+	 * Returns default budget of the created engines.
+	 * 
+	 * @return Default budget of the created engines or null if they are not limited.
+	 * @see JavaScriptEngine#getBudget()
+	 */
+	public ScriptBudget getBudget() {
+		return budget;
+	}
+	
+	/**
+	 * Sets default budget of the engines created after this call.
+	 * 
+	 * @param budget Default budget of the created engines, null for no limits.
+	 * @see JavaScriptEngine#setBudget(ScriptBudget)
+	 */
+	public void setBudget(ScriptBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * Creates new bounded pool of the engines for the passed script settings.
+	 * 
+	 * @param scriptSettings Script settings for which should be engines created.
+	 * @param maxSize Maximal number of the engines that can be borrowed at the same time.
+	 * @param maxIdleTime Maximal time in milliseconds for which can be engine idle, zero or negative value disables eviction.
+	 * @return New engine pool.
+	 */
+	public JavaScriptEnginePool createEnginePool(ScriptSettings scriptSettings, int maxSize, long maxIdleTime) {
+		return createEnginePool(scriptSettings, maxSize, maxIdleTime, null);
+	}
+	
+	/**
+	 * Creates new bounded pool of the engines for the passed script settings.
+	 * 
+	 * @param scriptSettings Script settings for which should be engines created.
+	 * @param maxSize Maximal number of the engines that can be borrowed at the same time.
+	 * @param maxIdleTime Maximal time in milliseconds for which can be engine idle, zero or negative value disables eviction.
+	 * @param setupScript Script which is evaluated in every engine created by the pool, or null.
+	 * @return New engine pool.
+	 */
+	public JavaScriptEnginePool createEnginePool(ScriptSettings scriptSettings, int maxSize, long maxIdleTime, String setupScript) {
+		return new JavaScriptEnginePool(this, scriptSettings, maxSize, maxIdleTime, setupScript);
+	}
+	
+	/**
+	 * Creates new executor which evaluates the inputs in parallel, every worker with its own engine.
+	 * 
+	 * @param scriptSettings Script settings for which should be engines created.
+	 * @param parallelism Number of the workers.
+	 * @return New parallel executor.
+	 */
+	public ParallelScriptExecutor createParallelExecutor(ScriptSettings scriptSettings, int parallelism) {
+		return createParallelExecutor(scriptSettings, parallelism, null);
+	}
+	
+	/**
+	 * Creates new executor which evaluates the inputs in parallel, every worker with its own engine.
+	 * 
+	 * @param scriptSettings Script settings for which should be engines created.
+	 * @param parallelism Number of the workers.
+	 * @param setupScript Script which is evaluated in every engine of the executor, e.g. it defines 
+	 *                    the functions called by {@link ParallelScriptExecutor#invokeFunction(String, java.util.List)}, or null.
+	 * @return New parallel executor.
+	 */
+	public ParallelScriptExecutor createParallelExecutor(ScriptSettings scriptSettings, int parallelism, String setupScript) {
+		JavaScriptEnginePool enginePool = createEnginePool(scriptSettings, parallelism, 0, setupScript);
+		return new ParallelScriptExecutor(enginePool, parallelism);
+	}
+	
+	/**
+	 * Creates new engine for the passed script settings through the public creation path,
+	 * so the pooled engines have injected the same script contexts as any other engine.
+	 * 
+	 * @param scriptSettings Script settings for which should be engine created.
+	 * @return New engine or null if the script settings are not supported.
+	 */
+	JavaScriptEngine<?> createEngine(ScriptSettings scriptSettings) {
+		AbstractScriptEngine engine = getBrowserScriptEngine(scriptSettings);
+		return (engine instanceof JavaScriptEngine<?>)? (JavaScriptEngine<?>)engine : null;
+	}
+
 	@Override
 	public String getEngineName() {
 		return ENGINE_NAME;
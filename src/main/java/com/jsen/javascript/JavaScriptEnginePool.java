@@ -0,0 +1,376 @@
+/**
+ * JavaScriptEnginePool.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+
+import com.jsen.core.ScriptSettings;
+
+/**
+ * Bounded pool of the JavaScript engines that are created for the same script settings.
+ * Borrowed engine is owned by the borrowing thread until it is returned, so the engine
+ * is never used by two threads at the same time. Engines which stay idle longer than
+ * the maximal idle time are evicted when the pool is accessed or by {@link #evictIdle()}.
+ * Every engine created by the pool evaluates the setup script, if there is any, so the engines
+ * created lazily after the warm-up or after the eviction are initialized in the same way.
+ * Returned engine is reset by {@link #resetEngine(JavaScriptEngine, ScriptContext, Map)},
+ * so the next borrower does not see the variables of the previous one.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngineFactory#createEnginePool(ScriptSettings, int, long)
+ */
+public class JavaScriptEnginePool {
+
+	/*
+	 * Engine created by the pool together with its default context and the engine bindings
+	 * which it had after the setup script.
+	 */
+	private static class PooledEngine {
+		private final JavaScriptEngine<?> engine;
+		private final ScriptContext context;
+		private final Map<String, Object> setupBindings;
+
+		public PooledEngine(JavaScriptEngine<?> engine) {
+			this.engine = engine;
+			this.context = engine.getContext();
+
+			Bindings engineBindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+			this.setupBindings = (engineBindings != null)? new HashMap<String, Object>(engineBindings) : new HashMap<String, Object>();
+		}
+	}
+
+	/*
+	 * Idle engine together with the time when it was returned into pool.
+	 */
+	private static class IdleEngine {
+		private final PooledEngine pooledEngine;
+		private final long returnedTime;
+
+		public IdleEngine(PooledEngine pooledEngine, long returnedTime) {
+			this.pooledEngine = pooledEngine;
+			this.returnedTime = returnedTime;
+		}
+	}
+
+	protected JavaScriptEngineFactory factory;
+	protected ScriptSettings scriptSettings;
+	protected int maxSize;
+	protected long maxIdleTime;
+	protected String setupScript;
+
+	private final LinkedBlockingDeque<IdleEngine> idleEngines;
+	private final Map<JavaScriptEngine<?>, PooledEngine> borrowedEngines;
+	private final Semaphore permits;
+	private final AtomicInteger createdCount;
+	private volatile boolean closed;
+
+	/**
+	 * Constructs new engine pool.
+	 *
+	 * @param factory Factory which creates the engines.
+	 * @param scriptSettings Script settings for which are engines created.
+	 * @param maxSize Maximal number of the engines that can be borrowed at the same time.
+	 * @param maxIdleTime Maximal time in milliseconds for which can be engine idle, zero or negative value disables eviction.
+	 */
+	public JavaScriptEnginePool(JavaScriptEngineFactory factory, ScriptSettings scriptSettings, int maxSize, long maxIdleTime) {
+		this(factory, scriptSettings, maxSize, maxIdleTime, null);
+	}
+
+	/**
+	 * Constructs new engine pool with the setup script.
+	 *
+	 * @param factory Factory which creates the engines.
+	 * @param scriptSettings Script settings for which are engines created.
+	 * @param maxSize Maximal number of the engines that can be borrowed at the same time.
+	 * @param maxIdleTime Maximal time in milliseconds for which can be engine idle, zero or negative value disables eviction.
+	 * @param setupScript Script which is evaluated in every created engine, or null.
+	 */
+	public JavaScriptEnginePool(JavaScriptEngineFactory factory, ScriptSettings scriptSettings, int maxSize, long maxIdleTime, String setupScript) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Maximal size of the pool must be positive");
+		}
+
+		this.factory = factory;
+		this.scriptSettings = scriptSettings;
+		this.maxSize = maxSize;
+		this.maxIdleTime = maxIdleTime;
+		this.setupScript = setupScript;
+		this.idleEngines = new LinkedBlockingDeque<IdleEngine>();
+		this.borrowedEngines = Collections.synchronizedMap(new IdentityHashMap<JavaScriptEngine<?>, PooledEngine>());
+		this.permits = new Semaphore(maxSize, true);
+		this.createdCount = new AtomicInteger();
+	}
+
+	/**
+	 * Borrows engine from the pool, waits if all engines are borrowed.
+	 *
+	 * @return Borrowed engine.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting.
+	 * @throws ScriptException Thrown if new engine had to be created and its setup script failed.
+	 */
+	public JavaScriptEngine<?> borrowEngine() throws InterruptedException, ScriptException {
+		permits.acquire();
+		return pollEngine();
+	}
+
+	/**
+	 * Borrows engine from the pool, waits at most the passed time if all engines are borrowed.
+	 *
+	 * @param timeout Maximal time to wait.
+	 * @param unit Unit of the timeout.
+	 * @return Borrowed engine or null if the waiting time elapsed.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting.
+	 * @throws ScriptException Thrown if new engine had to be created and its setup script failed.
+	 */
+	public JavaScriptEngine<?> borrowEngine(long timeout, TimeUnit unit) throws InterruptedException, ScriptException {
+		if (!permits.tryAcquire(timeout, unit)) {
+			return null;
+		}
+
+		return pollEngine();
+	}
+
+	/**
+	 * Returns borrowed engine back into pool. Engine is reset before it can be borrowed again.
+	 *
+	 * @param engine Engine which was borrowed from this pool.
+	 * @throws IllegalArgumentException Thrown if the engine was not borrowed from this pool or it was already returned.
+	 */
+	public void returnEngine(JavaScriptEngine<?> engine) {
+		if (engine == null) {
+			return;
+		}
+
+		PooledEngine pooledEngine = borrowedEngines.remove(engine);
+		if (pooledEngine == null) {
+			throw new IllegalArgumentException("Engine is not borrowed from this pool");
+		}
+
+		boolean pooled = false;
+
+		try {
+			if (!closed && idleEngines.size() < maxSize) {
+				resetEngine(pooledEngine);
+				idleEngines.offerFirst(new IdleEngine(pooledEngine, System.currentTimeMillis()));
+				pooled = true;
+			}
+		} finally {
+			if (!pooled) {
+				createdCount.decrementAndGet();
+			}
+
+			permits.release();
+		}
+	}
+
+	/**
+	 * Creates engines in advance, so the first borrows do not have to initialize them.
+	 *
+	 * @param count Number of the engines that should exist in the pool, it is limited by maximal size.
+	 * @return Number of the engines that were created.
+	 * @throws ScriptException Thrown if the setup script fails.
+	 */
+	public int warmUp(int count) throws ScriptException {
+		return warmUp(count, null);
+	}
+
+	/**
+	 * Creates engines in advance and evaluates the passed script in every new engine after
+	 * the setup script, so the first borrows do not have to initialize them. Engines which are
+	 * created later do not evaluate the warm-up script, only the setup script. Variables defined
+	 * by the warm-up script are removed by the reset of the engine.
+	 *
+	 * @param count Number of the engines that should exist in the pool, it is limited by maximal size.
+	 * @param script Warm-up script which should be evaluated in every created engine, or null.
+	 * @return Number of the engines that were created.
+	 * @throws ScriptException Thrown if the setup or warm-up script fails.
+	 */
+	public int warmUp(int count, String script) throws ScriptException {
+		count = Math.min(count, maxSize);
+		int created = 0;
+
+		while (!closed && createdCount.get() < count) {
+			PooledEngine pooledEngine = createEngine();
+
+			if (script != null) {
+				try {
+					pooledEngine.engine.eval(script);
+				} catch (ScriptException e) {
+					createdCount.decrementAndGet();
+					throw e;
+				}
+
+				resetEngine(pooledEngine);
+			}
+
+			idleEngines.offerLast(new IdleEngine(pooledEngine, System.currentTimeMillis()));
+			created++;
+		}
+
+		return created;
+	}
+
+	/**
+	 * Removes the engines which were idle longer than the maximal idle time.
+	 *
+	 * @return Number of the evicted engines.
+	 */
+	public int evictIdle() {
+		if (maxIdleTime <= 0) {
+			return 0;
+		}
+
+		long expirationTime = System.currentTimeMillis() - maxIdleTime;
+		int evicted = 0;
+
+		/* The least recently returned engines are at the end of the deque */
+		IdleEngine idleEngine;
+		while ((idleEngine = idleEngines.peekLast()) != null && idleEngine.returnedTime < expirationTime) {
+			if (idleEngines.removeLastOccurrence(idleEngine)) {
+				createdCount.decrementAndGet();
+				evicted++;
+			}
+		}
+
+		return evicted;
+	}
+
+	/**
+	 * Removes all idle engines and disables returning of the borrowed engines into pool.
+	 */
+	public void close() {
+		closed = true;
+
+		while (idleEngines.pollFirst() != null) {
+			createdCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns maximal number of the engines that can be borrowed at the same time.
+	 *
+	 * @return Maximal size of the pool.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns number of the idle engines.
+	 *
+	 * @return Number of the idle engines.
+	 */
+	public int getIdleCount() {
+		return idleEngines.size();
+	}
+
+	/**
+	 * Returns number of the currently borrowed engines.
+	 *
+	 * @return Number of the currently borrowed engines.
+	 */
+	public int getBorrowedCount() {
+		return maxSize - permits.availablePermits();
+	}
+
+	/**
+	 * Returns number of the engines that are held by this pool or borrowed from it.
+	 *
+	 * @return Number of the existing engines.
+	 */
+	public int getSize() {
+		return createdCount.get();
+	}
+
+	private JavaScriptEngine<?> pollEngine() throws ScriptException {
+		try {
+			if (closed) {
+				throw new IllegalStateException("Engine pool is closed");
+			}
+
+			evictIdle();
+
+			IdleEngine idleEngine = idleEngines.pollFirst();
+			PooledEngine pooledEngine = (idleEngine != null)? idleEngine.pooledEngine : createEngine();
+
+			borrowedEngines.put(pooledEngine.engine, pooledEngine);
+			return pooledEngine.engine;
+		} catch (RuntimeException e) {
+			permits.release();
+			throw e;
+		} catch (ScriptException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Resets the returned engine, so it can be borrowed again. Default implementation sets back
+	 * the default context of the engine and replaces its engine bindings by the new bindings
+	 * with the values which were there after the setup script, so the variables and functions
+	 * defined by the previous borrower are removed. Values are copied shallowly, so changes
+	 * inside the objects created by the setup script, in the global bindings and in the standard
+	 * objects of the top level scope are not reverted, neither are the engine settings,
+	 * e.g. the budget. Subclasses can override this method to reset also such state.
+	 *
+	 * @param engine Engine to be reset.
+	 * @param context Default context which the engine had when it was created.
+	 * @param setupBindings Engine bindings after the setup script, they must not be modified.
+	 */
+	protected void resetEngine(JavaScriptEngine<?> engine, ScriptContext context, Map<String, Object> setupBindings) {
+		Bindings engineBindings = engine.createBindings();
+		engineBindings.putAll(setupBindings);
+
+		context.setBindings(engineBindings, ScriptContext.ENGINE_SCOPE);
+		engine.setContext(context);
+	}
+
+	private void resetEngine(PooledEngine pooledEngine) {
+		resetEngine(pooledEngine.engine, pooledEngine.context, Collections.unmodifiableMap(pooledEngine.setupBindings));
+	}
+
+	private PooledEngine createEngine() throws ScriptException {
+		JavaScriptEngine<?> engine = factory.createEngine(scriptSettings);
+
+		if (engine == null) {
+			throw new IllegalArgumentException("Script settings are not supported by the engine factory");
+		}
+
+		if (setupScript != null) {
+			engine.eval(setupScript);
+		}
+
+		createdCount.incrementAndGet();
+		return new PooledEngine(engine);
+	}
+}
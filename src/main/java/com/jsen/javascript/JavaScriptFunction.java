@@ -0,0 +1,304 @@
+/**
+ * JavaScriptFunction.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import javax.script.ScriptException;
+
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
+
+/**
+ * Handle of the resolved script function, which can be called repeatedly
+ * without resolving the function again.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#lookupFunction(String)
+ */
+public class JavaScriptFunction {
+	protected JavaScriptEngine<?> scriptEngine;
+	protected Function function;
+	protected Scriptable parentScope;
+	protected Scriptable thisObject;
+
+	/**
+	 * Constructs handle of the resolved function.
+	 *
+	 * @param scriptEngine Script engine which owns the function.
+	 * @param function Resolved function.
+	 * @param thisObject Object which is used as this object of the calls.
+	 */
+	public JavaScriptFunction(JavaScriptEngine<?> scriptEngine, Function function, Scriptable thisObject) {
+		Scriptable parentScope = function.getParentScope();
+
+		this.scriptEngine = scriptEngine;
+		this.function = function;
+		this.thisObject = thisObject;
+		this.parentScope = (parentScope != null)? parentScope : thisObject;
+	}
+
+	/**
+	 * Returns resolved function.
+	 *
+	 * @return Resolved function.
+	 */
+	public Function getFunction() {
+		return function;
+	}
+
+	/**
+	 * Returns name of the resolved function.
+	 *
+	 * @return Name of the function or null if the function is anonymous.
+	 */
+	public String getName() {
+		return getName(function);
+	}
+
+	/**
+	 * Returns object which is used as this object of the calls.
+	 *
+	 * @return This object of the calls.
+	 */
+	public Scriptable getThisObject() {
+		return thisObject;
+	}
+
+	/**
+	 * Calls the function.
+	 *
+	 * @param args Arguments of the call.
+	 * @return Unwrapped returned value.
+	 * @throws ScriptException Thrown if the function fails.
+	 */
+	public Object call(Object... args) throws ScriptException {
+		return scriptEngine.unwrap(callFunction(args, scriptEngine.getBudget()));
+	}
+	
+	/**
+	 * Calls the function with the passed budget instead of the budget of the engine.
+	 * Budget limits the function only if it was compiled while the engine had some budget.
+	 *
+	 * @param budget Budget of this call, null for no limits.
+	 * @param args Arguments of the call.
+	 * @return Unwrapped returned value.
+	 * @throws ScriptException Thrown if the function fails, it is ScriptBudgetException if the function exceeds its budget.
+	 */
+	public Object callWithBudget(ScriptBudget budget, Object... args) throws ScriptException {
+		return scriptEngine.unwrap(callFunction(args, budget));
+	}
+
+	/**
+	 * Calls the function and converts the returned value into number.
+	 *
+	 * @param args Arguments of the call.
+	 * @return Returned value converted into number.
+	 * @throws ScriptException Thrown if the function fails.
+	 */
+	public double callDouble(Object... args) throws ScriptException {
+		return Context.toNumber(callFunction(args, scriptEngine.getBudget()));
+	}
+
+	/**
+	 * Calls the function and converts the returned value into integral number.
+	 *
+	 * @param args Arguments of the call.
+	 * @return Returned value converted into number and truncated.
+	 * @throws ScriptException Thrown if the function fails.
+	 */
+	public long callLong(Object... args) throws ScriptException {
+		return (long)Context.toNumber(callFunction(args, scriptEngine.getBudget()));
+	}
+
+	/**
+	 * Calls the function for every passed arguments inside one context entry. Failure of one
+	 * call is reported to the callback and it does not abort the other calls. Converted arguments
+	 * are passed in the array which is reused by the next calls, so the function should not keep
+	 * its arguments object after the call returns. Budget of the engine limits the whole batch,
+	 * so if it is exceeded, the error is reported for the current call and the remaining calls are skipped.
+	 *
+	 * @param argsList Arguments of the particular calls.
+	 * @param callback Callback which receives the result or the error of every call.
+	 * @return Number of the calls which failed.
+	 */
+	public int callBatch(Iterable<Object[]> argsList, BatchCallback callback) {
+		Scriptable topLevel = scriptEngine.topLevel;
+		Object[] callArgs = Context.emptyArgs;
+		int index = 0;
+		int errors = 0;
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		String name = (measured)? getName() : null;
+		String previousScriptName = (measured)? EngineMetrics.enterScript(name) : null;
+
+		Context cx = scriptEngine.enterContext();
+		try {
+			for (Object[] args : argsList) {
+				args = (args != null)? args : Context.emptyArgs;
+
+				if (callArgs.length != args.length) {
+					callArgs = new Object[args.length];
+				}
+
+				Object result;
+				long startTime = (measured)? System.nanoTime() : 0;
+				try {
+					for (int i = 0; i < args.length; i++) {
+						callArgs[i] = JavaScriptEngine.javaToJS(args[i], topLevel);
+					}
+
+					result = scriptEngine.unwrap(function.call(cx, parentScope, thisObject, callArgs));
+				} catch (ScriptBudgetExceededError err) {
+					errors++;
+					recordCall(metrics, name, startTime, true);
+					callback.onError(index, new ScriptBudgetException(err));
+					break;
+				} catch (Exception ex) {
+					errors++;
+					recordCall(metrics, name, startTime, true);
+					callback.onError(index++, JavaScriptEngine.wrapScriptException(ex));
+					continue;
+				}
+
+				recordCall(metrics, name, startTime, false);
+				callback.onResult(index++, result);
+			}
+		} finally {
+			scriptEngine.exitContext();
+			
+			if (measured) {
+				EngineMetrics.exitScript(previousScriptName);
+			}
+		}
+
+		return errors;
+	}
+
+	/**
+	 * Calls the function and returns the value as it was returned by the script.
+	 *
+	 * @param args Arguments of the call.
+	 * @param budget Budget of the call, null for no limits.
+	 * @return Returned value.
+	 * @throws ScriptException Thrown if the function fails.
+	 */
+	protected Object callFunction(Object[] args, ScriptBudget budget) throws ScriptException {
+		Context cx = scriptEngine.enterContext(budget);
+
+		try {
+			return callFunction(scriptEngine, cx, function, parentScope, thisObject, args);
+		} finally {
+			scriptEngine.exitContext();
+		}
+	}
+
+	/**
+	 * Calls the passed function inside the already entered context and records the call.
+	 *
+	 * @param scriptEngine Script engine which owns the function.
+	 * @param cx Entered context.
+	 * @param function Function to be called.
+	 * @param parentScope Parent scope of the call.
+	 * @param thisObject This object of the call.
+	 * @param args Arguments of the call.
+	 * @return Returned value.
+	 * @throws ScriptException Thrown if the function fails, it is ScriptBudgetException if the function exceeds its budget.
+	 */
+	protected static Object callFunction(JavaScriptEngine<?> scriptEngine, Context cx, Function function, Scriptable parentScope, Scriptable thisObject, Object[] args) throws ScriptException {
+		Object ret = null;
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		String name = (measured)? getName(function) : null;
+		long startTime = (measured)? System.nanoTime() : 0;
+		String previousScriptName = (measured)? EngineMetrics.enterScript(name) : null;
+		boolean failed = true;
+
+		try {
+			Object[] callArgs = toCallArgs(args, scriptEngine.topLevel);
+			ret = function.call(cx, parentScope, thisObject, callArgs);
+			failed = false;
+		} catch (ScriptBudgetExceededError err) {
+			throw new ScriptBudgetException(err);
+		} catch (Exception ex) {
+			JavaScriptEngine.throwWrappedScriptException(ex);
+		} finally {
+			if (measured) {
+				EngineMetrics.exitScript(previousScriptName);
+				metrics.record(ScriptMetrics.Operation.INVOKE, name, System.nanoTime() - startTime, failed);
+			}
+		}
+
+		return ret;
+	}
+
+	/**
+	 * Returns name of the passed function.
+	 *
+	 * @param function Function of which name should be returned.
+	 * @return Name of the function or null if the function is anonymous.
+	 */
+	protected static String getName(Function function) {
+		String name = (function instanceof BaseFunction)? ((BaseFunction)function).getFunctionName() : null;
+		return (name != null && !name.isEmpty())? name : null;
+	}
+
+	private static void recordCall(ScriptMetrics metrics, String name, long startTime, boolean failed) {
+		if (startTime != 0) {
+			metrics.record(ScriptMetrics.Operation.INVOKE, name, System.nanoTime() - startTime, failed);
+		}
+	}
+
+	/**
+	 * Converts the arguments into JavaScript objects. Passed array is copied only if some
+	 * argument has to be converted, primitives and script objects are passed as they are.
+	 *
+	 * @param args Arguments to be converted.
+	 * @param scope Top scope object.
+	 * @return Passed array or the array of the converted arguments.
+	 */
+	protected static Object[] toCallArgs(Object[] args, Scriptable scope) {
+		if (args == null) {
+			return Context.emptyArgs;
+		}
+
+		Object[] callArgs = args;
+
+		for (int i = 0; i < args.length; i++) {
+			Object arg = args[i];
+			Object converted = JavaScriptEngine.javaToJS(arg, scope);
+
+			if (converted != arg) {
+				if (callArgs == args) {
+					callArgs = args.clone();
+				}
+
+				callArgs[i] = converted;
+			}
+		}
+
+		return callArgs;
+	}
+}
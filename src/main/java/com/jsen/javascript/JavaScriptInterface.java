@@ -0,0 +1,228 @@
+/**
+ * JavaScriptInterface.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.script.ScriptException;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
+
+/**
+ * Implementation of the Java interface by the script functions. Functions are
+ * resolved only once when the interface is created and every interface method
+ * has precomputed conversions of its parameters and return value. Failures of the functions
+ * are thrown as {@link ScriptException}, or {@link ScriptBudgetException} if the budget of
+ * the engine is exceeded, so they are wrapped into UndeclaredThrowableException by the proxy
+ * if the interface method does not declare them.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#getInterface(Object, Class)
+ */
+public class JavaScriptInterface implements InvocationHandler {
+	private static final int CONVERT_NONE = 0;
+	private static final int CONVERT_CHARACTER = 1;
+	private static final int CONVERT_JAVA = 2;
+
+	/*
+	 * Function bound to the interface method.
+	 */
+	private static class MethodBinding {
+		private final Function function;
+		private final String name;
+		private final Scriptable parentScope;
+		private final int[] conversions;
+		private final Class<?> returnType;
+
+		public MethodBinding(Function function, Scriptable parentScope, Method method) {
+			Class<?>[] parameterTypes = method.getParameterTypes();
+
+			String functionName = JavaScriptFunction.getName(function);
+
+			this.function = function;
+			this.name = (functionName != null)? functionName : method.getName();
+			this.parentScope = parentScope;
+			this.returnType = method.getReturnType();
+			this.conversions = new int[parameterTypes.length];
+
+			for (int i = 0; i < parameterTypes.length; i++) {
+				conversions[i] = getConversion(parameterTypes[i]);
+			}
+		}
+	}
+
+	private final JavaScriptEngine<?> scriptEngine;
+	private final Class<?> interfaceClass;
+	private final Scriptable thisObject;
+	private final Map<Method, MethodBinding> bindings;
+
+	private JavaScriptInterface(JavaScriptEngine<?> scriptEngine, Class<?> interfaceClass, Scriptable thisObject, Map<Method, MethodBinding> bindings) {
+		this.scriptEngine = scriptEngine;
+		this.interfaceClass = interfaceClass;
+		this.thisObject = thisObject;
+		this.bindings = bindings;
+	}
+
+	/**
+	 * Creates implementation of the passed interface using the functions of the passed script object.
+	 *
+	 * @param scriptEngine Script engine which owns the script object.
+	 * @param thisObject Script object which contains the functions.
+	 * @param interfaceClass Interface to be implemented.
+	 * @return Implementation of the interface or null if some interface method does not have any function.
+	 */
+	public static <T> T create(JavaScriptEngine<?> scriptEngine, Scriptable thisObject, Class<T> interfaceClass) {
+		if (interfaceClass == null || !interfaceClass.isInterface()) {
+			throw new IllegalArgumentException("Passed class must be an interface");
+		}
+
+		Map<Method, MethodBinding> bindings = new HashMap<Method, MethodBinding>();
+
+		for (Method method : interfaceClass.getMethods()) {
+			if (method.getDeclaringClass() == Object.class) {
+				continue;
+			}
+
+			Object property = ScriptableObject.getProperty(thisObject, method.getName());
+			if (!(property instanceof Function)) {
+				return null;
+			}
+
+			Function function = (Function)property;
+			Scriptable parentScope = function.getParentScope();
+			parentScope = (parentScope != null)? parentScope : thisObject;
+
+			bindings.put(method, new MethodBinding(function, parentScope, method));
+		}
+
+		JavaScriptInterface handler = new JavaScriptInterface(scriptEngine, interfaceClass, thisObject, bindings);
+		Object proxy = Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class<?>[] {interfaceClass}, handler);
+
+		return interfaceClass.cast(proxy);
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		MethodBinding binding = bindings.get(method);
+
+		if (binding == null) {
+			return invokeObjectMethod(proxy, method, args);
+		}
+
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		boolean measured = metrics.isEnabled();
+		long startTime = (measured)? System.nanoTime() : 0;
+		String previousScriptName = (measured)? EngineMetrics.enterScript(binding.name) : null;
+		boolean failed = true;
+
+		Context cx = scriptEngine.enterContext();
+		try {
+			Object result = binding.function.call(cx, binding.parentScope, thisObject, convertArgs(args, binding.conversions));
+			result = convertResult(result, binding.returnType);
+			failed = false;
+			return result;
+		} catch (ScriptBudgetExceededError err) {
+			throw new ScriptBudgetException(err);
+		} catch (Exception ex) {
+			throw JavaScriptEngine.wrapScriptException(ex);
+		} finally {
+			scriptEngine.exitContext();
+
+			if (measured) {
+				EngineMetrics.exitScript(previousScriptName);
+				metrics.record(ScriptMetrics.Operation.INVOKE, binding.name, System.nanoTime() - startTime, failed);
+			}
+		}
+	}
+
+	/*
+	 * Array passed by the proxy is not used after the call, so it is converted in place.
+	 */
+	private Object[] convertArgs(Object[] args, int[] conversions) {
+		if (args == null) {
+			return Context.emptyArgs;
+		}
+
+		Scriptable topLevel = scriptEngine.topLevel;
+
+		for (int i = 0; i < args.length; i++) {
+			switch (conversions[i]) {
+				case CONVERT_NONE:
+					break;
+				case CONVERT_CHARACTER:
+					args[i] = (args[i] != null)? args[i].toString() : null;
+					break;
+				default:
+					args[i] = JavaScriptEngine.javaToJS(args[i], topLevel);
+			}
+		}
+
+		return args;
+	}
+	
+	private Object convertResult(Object result, Class<?> returnType) {
+		if (returnType == void.class) {
+			return null;
+		} else if (!returnType.isPrimitive() && (result == null || result instanceof Undefined)) {
+			return null;
+		} else if (returnType == Object.class) {
+			return scriptEngine.unwrap(result);
+		}
+		
+		return Context.jsToJava(result, returnType);
+	}
+
+	private Object invokeObjectMethod(Object proxy, Method method, Object[] args) {
+		String name = method.getName();
+
+		if (name.equals("equals")) {
+			return proxy == args[0];
+		} else if (name.equals("hashCode")) {
+			return System.identityHashCode(proxy);
+		} else if (name.equals("toString")) {
+			return "JavaScript implementation of " + interfaceClass.getName();
+		}
+
+		throw new UnsupportedOperationException("Method " + name + " is not implemented");
+	}
+
+	private static int getConversion(Class<?> type) {
+		if (type == char.class || type == Character.class) {
+			return CONVERT_CHARACTER;
+		} else if (type.isPrimitive() || type == String.class || type == Boolean.class || (Number.class.isAssignableFrom(type) && type.getName().startsWith("java.lang."))) {
+			return CONVERT_NONE;
+		} else {
+			return CONVERT_JAVA;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/**
+ * NamedScriptReader.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+import java.io.FilterReader;
+import java.io.Reader;
+import java.io.StringReader;
+
+/**
+ * Reader of the script source which carries the logical name of the script, e.g. its URL.
+ * Name is used as the source name of the compiled script, so it appears in the stack traces,
+ * script exceptions, metrics and in the script registry.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#eval(Reader, String)
+ */
+public class NamedScriptReader extends FilterReader {
+	private final String scriptName;
+
+	/**
+	 * Constructs named reader of the passed reader.
+	 *
+	 * @param reader Reader of the script source.
+	 * @param scriptName Name of the script.
+	 */
+	public NamedScriptReader(Reader reader, String scriptName) {
+		super(reader);
+
+		this.scriptName = scriptName;
+	}
+
+	/**
+	 * Constructs named reader of the passed script source.
+	 *
+	 * @param source Script source.
+	 * @param scriptName Name of the script.
+	 */
+	public NamedScriptReader(String source, String scriptName) {
+		this(new StringReader(source), scriptName);
+	}
+
+	/**
+	 * Returns name of the script.
+	 *
+	 * @return Name of the script.
+	 */
+	public String getScriptName() {
+		return scriptName;
+	}
+}
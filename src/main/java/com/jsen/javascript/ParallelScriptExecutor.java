@@ -0,0 +1,318 @@
+/**
+ * ParallelScriptExecutor.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.Bindings;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+/**
+ * Executor which splits the inputs into contiguous chunks and evaluates every chunk
+ * on its own worker with its own engine borrowed from the engine pool, so every
+ * worker has its own context and top level scope. Results are merged in the order
+ * of the inputs. Functions which are called by the workers have to be defined in every
+ * engine of the pool, so they should be defined by the setup script of the engine pool.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngineFactory#createParallelExecutor(com.jsen.core.ScriptSettings, int)
+ */
+public class ParallelScriptExecutor {
+
+	/*
+	 * Chunk of the inputs, which stores its results into shared results array.
+	 */
+	private static abstract class Chunk implements Callable<Void>, BatchCallback {
+		protected final JavaScriptEnginePool enginePool;
+		protected final int offset;
+		protected final Object[] results;
+		protected final BatchCallback callback;
+		protected ScriptException firstError;
+		protected int firstErrorIndex;
+
+		public Chunk(JavaScriptEnginePool enginePool, int offset, Object[] results, BatchCallback callback) {
+			this.enginePool = enginePool;
+			this.offset = offset;
+			this.results = results;
+			this.callback = callback;
+		}
+
+		@Override
+		public Void call() throws Exception {
+			JavaScriptEngine<?> engine = enginePool.borrowEngine();
+
+			try {
+				evaluate(engine);
+			} finally {
+				enginePool.returnEngine(engine);
+			}
+
+			return null;
+		}
+
+		@Override
+		public void onResult(int index, Object result) {
+			if (results != null) {
+				results[offset + index] = result;
+			}
+
+			if (callback != null) {
+				callback.onResult(offset + index, result);
+			}
+		}
+
+		@Override
+		public void onError(int index, ScriptException exception) {
+			if (firstError == null) {
+				firstError = exception;
+				firstErrorIndex = offset + index;
+			}
+
+			if (callback != null) {
+				callback.onError(offset + index, exception);
+			}
+		}
+
+		protected abstract void evaluate(JavaScriptEngine<?> engine) throws Exception;
+	}
+
+	/*
+	 * Chunk which calls the named function.
+	 */
+	private static class FunctionChunk extends Chunk {
+		private final String name;
+		private final List<Object[]> argsList;
+
+		public FunctionChunk(JavaScriptEnginePool enginePool, int offset, Object[] results, BatchCallback callback, String name, List<Object[]> argsList) {
+			super(enginePool, offset, results, callback);
+			this.name = name;
+			this.argsList = argsList;
+		}
+
+		@Override
+		protected void evaluate(JavaScriptEngine<?> engine) throws Exception {
+			engine.lookupFunction(name).callBatch(argsList, this);
+		}
+	}
+
+	/*
+	 * Chunk which evaluates the script with the particular bindings.
+	 */
+	private static class ScriptChunk extends Chunk {
+		private final String script;
+		private final List<? extends Bindings> bindingsList;
+
+		public ScriptChunk(JavaScriptEnginePool enginePool, int offset, Object[] results, BatchCallback callback, String script, List<? extends Bindings> bindingsList) {
+			super(enginePool, offset, results, callback);
+			this.script = script;
+			this.bindingsList = bindingsList;
+		}
+
+		@Override
+		protected void evaluate(JavaScriptEngine<?> engine) throws Exception {
+			CompiledScript compiledScript = engine.compile(script);
+			int index = 0;
+
+			for (Bindings bindings : bindingsList) {
+				Object result;
+				try {
+					result = compiledScript.eval(bindings);
+				} catch (ScriptException e) {
+					onError(index++, e);
+					continue;
+				}
+
+				onResult(index++, result);
+			}
+		}
+	}
+
+	protected JavaScriptEnginePool enginePool;
+	protected ExecutorService executor;
+	protected int parallelism;
+
+	/**
+	 * Constructs executor with its own worker threads.
+	 *
+	 * @param enginePool Pool from which are borrowed the engines for the workers.
+	 * @param parallelism Number of the workers.
+	 */
+	public ParallelScriptExecutor(JavaScriptEnginePool enginePool, int parallelism) {
+		this(enginePool, Executors.newFixedThreadPool(parallelism), parallelism);
+	}
+
+	/**
+	 * Constructs executor which runs the workers on the passed executor service.
+	 *
+	 * @param enginePool Pool from which are borrowed the engines for the workers.
+	 * @param executor Executor service which runs the workers.
+	 * @param parallelism Number of the chunks into which are the inputs split.
+	 */
+	public ParallelScriptExecutor(JavaScriptEnginePool enginePool, ExecutorService executor, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be positive");
+		}
+
+		this.enginePool = enginePool;
+		this.executor = executor;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Calls the global function with the passed name for every passed arguments.
+	 * Function has to be defined by the setup script of the engine pool.
+	 *
+	 * @param name Name of the function.
+	 * @param argsList Arguments of the particular calls.
+	 * @return Results of the calls in the order of the arguments.
+	 * @throws ScriptException Thrown if some call fails, it is the failure of the first failed call.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting for the results.
+	 */
+	public List<Object> invokeFunction(String name, List<Object[]> argsList) throws ScriptException, InterruptedException {
+		Object[] results = new Object[argsList.size()];
+		List<Chunk> chunks = new ArrayList<Chunk>();
+
+		for (int[] range : split(argsList.size())) {
+			chunks.add(new FunctionChunk(enginePool, range[0], results, null, name, argsList.subList(range[0], range[1])));
+		}
+
+		execute(chunks);
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Calls the global function with the passed name for every passed arguments and reports
+	 * every result to the callback. Callback is called concurrently from the workers.
+	 *
+	 * @param name Name of the function.
+	 * @param argsList Arguments of the particular calls.
+	 * @param callback Thread safe callback which receives the result or the error of every call.
+	 * @throws ScriptException Thrown if the function cannot be resolved.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting for the results.
+	 */
+	public void invokeFunction(String name, List<Object[]> argsList, BatchCallback callback) throws ScriptException, InterruptedException {
+		List<Chunk> chunks = new ArrayList<Chunk>();
+
+		for (int[] range : split(argsList.size())) {
+			chunks.add(new FunctionChunk(enginePool, range[0], null, callback, name, argsList.subList(range[0], range[1])));
+		}
+
+		executeChunks(chunks);
+	}
+
+	/**
+	 * Evaluates the script with every passed bindings. Script is compiled once per worker.
+	 *
+	 * @param script Script to be evaluated.
+	 * @param bindingsList Engine scope bindings of the particular evaluations.
+	 * @return Results of the evaluations in the order of the bindings.
+	 * @throws ScriptException Thrown if some evaluation fails, it is the failure of the first failed evaluation.
+	 * @throws InterruptedException Thrown if the current thread is interrupted while waiting for the results.
+	 */
+	public List<Object> eval(String script, List<? extends Bindings> bindingsList) throws ScriptException, InterruptedException {
+		Object[] results = new Object[bindingsList.size()];
+		List<Chunk> chunks = new ArrayList<Chunk>();
+
+		for (int[] range : split(bindingsList.size())) {
+			chunks.add(new ScriptChunk(enginePool, range[0], results, null, script, bindingsList.subList(range[0], range[1])));
+		}
+
+		execute(chunks);
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Returns pool from which are borrowed the engines.
+	 *
+	 * @return Engine pool of this executor.
+	 */
+	public JavaScriptEnginePool getEnginePool() {
+		return enginePool;
+	}
+
+	/**
+	 * Stops the workers and closes the engine pool.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		enginePool.close();
+	}
+
+	private void execute(List<Chunk> chunks) throws ScriptException, InterruptedException {
+		executeChunks(chunks);
+
+		Chunk failedChunk = null;
+		for (Chunk chunk : chunks) {
+			if (chunk.firstError != null && (failedChunk == null || chunk.firstErrorIndex < failedChunk.firstErrorIndex)) {
+				failedChunk = chunk;
+			}
+		}
+
+		if (failedChunk != null) {
+			throw failedChunk.firstError;
+		}
+	}
+
+	private void executeChunks(List<Chunk> chunks) throws ScriptException, InterruptedException {
+		List<Future<Void>> futures = executor.invokeAll(chunks);
+
+		for (Future<Void> future : futures) {
+			try {
+				future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+
+				if (cause instanceof ScriptException) {
+					throw (ScriptException)cause;
+				} else if (cause instanceof Exception) {
+					throw JavaScriptEngine.wrapScriptException((Exception)cause);
+				}
+
+				throw new ScriptException(e);
+			}
+		}
+	}
+
+	private List<int[]> split(int size) {
+		int chunksCount = Math.max(1, Math.min(parallelism, size));
+		int chunkSize = size / chunksCount;
+		int remainder = size % chunksCount;
+		List<int[]> ranges = new ArrayList<int[]>(chunksCount);
+
+		int start = 0;
+		for (int i = 0; i < chunksCount; i++) {
+			int end = start + chunkSize + ((i < remainder)? 1 : 0);
+			ranges.add(new int[] {start, end});
+			start = end;
+		}
+
+		return ranges;
+	}
+}
@@ -0,0 +1,137 @@
+/**
+ * ScriptBudget.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+/**
+ * Limits of the resources which may be consumed by one invocation of the script.
+ * Limits are checked only once per the instruction observer threshold of the context,
+ * so the invocation may slightly exceed them before it is stopped. Zero limit means
+ * that the particular resource is not limited. Instruction counting is compiled only into
+ * the scripts and functions compiled while some budget is set, so the budget passed to
+ * the particular call does not limit the code which was compiled without any budget.
+ * Engine with a budget that has no limits compiles the counting code, so such budget
+ * can be used to enable the per-call budgets without limiting the other calls.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#setBudget(ScriptBudget)
+ */
+public class ScriptBudget {
+
+	/**
+	 * Resources which are limited by the budget.
+	 */
+	public enum Limit {
+		/**
+		 * Number of the executed script instructions.
+		 */
+		INSTRUCTIONS,
+
+		/**
+		 * Wall-clock time of the invocation in milliseconds.
+		 */
+		TIME,
+
+		/**
+		 * Number of the bytes allocated by the invoking thread.
+		 */
+		ALLOCATED_BYTES
+	}
+
+	/**
+	 * Budget which does not limit anything.
+	 */
+	public static final ScriptBudget UNLIMITED = new ScriptBudget(0, 0, 0);
+
+	private final long maxInstructions;
+	private final long maxTime;
+	private final long maxAllocatedBytes;
+
+	/**
+	 * Constructs budget which limits the instructions and the time.
+	 *
+	 * @param maxInstructions Maximal number of the executed instructions, zero for no limit.
+	 * @param maxTime Maximal wall-clock time in milliseconds, zero for no limit.
+	 */
+	public ScriptBudget(long maxInstructions, long maxTime) {
+		this(maxInstructions, maxTime, 0);
+	}
+
+	/**
+	 * Constructs budget.
+	 *
+	 * @param maxInstructions Maximal number of the executed instructions, zero for no limit.
+	 * @param maxTime Maximal wall-clock time in milliseconds, zero for no limit.
+	 * @param maxAllocatedBytes Maximal number of the allocated bytes, zero for no limit.
+	 *  It is enforced only if the virtual machine supports the thread allocated memory measurement.
+	 */
+	public ScriptBudget(long maxInstructions, long maxTime, long maxAllocatedBytes) {
+		if (maxInstructions < 0 || maxTime < 0 || maxAllocatedBytes < 0) {
+			throw new IllegalArgumentException("Limits of the budget cannot be negative");
+		}
+
+		this.maxInstructions = maxInstructions;
+		this.maxTime = maxTime;
+		this.maxAllocatedBytes = maxAllocatedBytes;
+	}
+
+	/**
+	 * Returns maximal number of the executed instructions.
+	 *
+	 * @return Maximal number of the executed instructions, zero if they are not limited.
+	 */
+	public long getMaxInstructions() {
+		return maxInstructions;
+	}
+
+	/**
+	 * Returns maximal wall-clock time of the invocation.
+	 *
+	 * @return Maximal time in milliseconds, zero if it is not limited.
+	 */
+	public long getMaxTime() {
+		return maxTime;
+	}
+
+	/**
+	 * Returns maximal number of the bytes allocated by the invoking thread.
+	 *
+	 * @return Maximal number of the allocated bytes, zero if they are not limited.
+	 */
+	public long getMaxAllocatedBytes() {
+		return maxAllocatedBytes;
+	}
+
+	/**
+	 * Tests whether this budget does not limit anything.
+	 *
+	 * @return True if no resource is limited, otherwise false.
+	 */
+	public boolean isUnlimited() {
+		return maxInstructions == 0 && maxTime == 0 && maxAllocatedBytes == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "ScriptBudget[instructions=" + maxInstructions + ", time=" + maxTime + "ms, allocatedBytes=" + maxAllocatedBytes + "]";
+	}
+}
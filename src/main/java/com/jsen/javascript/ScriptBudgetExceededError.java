@@ -0,0 +1,68 @@
+/**
+ * ScriptBudgetExceededError.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+/**
+ * Error which stops the script when it exceeds its budget. It is an error and not
+ * an exception, so the script cannot catch it by its own try-catch statement.
+ * Engine converts it into {@link ScriptBudgetException} before it leaves the engine.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class ScriptBudgetExceededError extends Error {
+	private static final long serialVersionUID = 3216907823474410298L;
+
+	private final transient ScriptBudgetUsage usage;
+	private final ScriptBudget.Limit limit;
+
+	/**
+	 * Constructs error for the exceeded limit.
+	 *
+	 * @param usage Usage which exceeded the budget.
+	 * @param limit Limit which was exceeded.
+	 */
+	public ScriptBudgetExceededError(ScriptBudgetUsage usage, ScriptBudget.Limit limit) {
+		super("Script exceeded its " + limit + " budget: " + usage);
+
+		this.usage = usage;
+		this.limit = limit;
+	}
+
+	/**
+	 * Returns usage which exceeded the budget.
+	 *
+	 * @return Usage which exceeded the budget.
+	 */
+	public ScriptBudgetUsage getUsage() {
+		return usage;
+	}
+
+	/**
+	 * Returns limit which was exceeded.
+	 *
+	 * @return Exceeded limit.
+	 */
+	public ScriptBudget.Limit getLimit() {
+		return limit;
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * ScriptBudgetException.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+import javax.script.ScriptException;
+
+/**
+ * Script exception which is thrown when the invocation exceeds its budget.
+ * It carries the resources consumed until the invocation was stopped.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see ScriptBudget
+ */
+public class ScriptBudgetException extends ScriptException {
+	private static final long serialVersionUID = -2180462905735514567L;
+
+	private final ScriptBudget.Limit limit;
+	private final long instructionCount;
+	private final long elapsedTime;
+	private final long allocatedBytes;
+	private final transient ScriptBudget budget;
+
+	/**
+	 * Constructs exception from the error which stopped the script.
+	 *
+	 * @param error Error which stopped the script.
+	 */
+	public ScriptBudgetException(ScriptBudgetExceededError error) {
+		super(error.getMessage());
+		initCause(error);
+
+		ScriptBudgetUsage usage = error.getUsage();
+
+		this.limit = error.getLimit();
+		this.budget = usage.getBudget();
+		this.instructionCount = usage.getInstructionCount();
+		this.elapsedTime = usage.getElapsedTime();
+		this.allocatedBytes = usage.getAllocatedBytes();
+	}
+
+	/**
+	 * Returns limit which was exceeded.
+	 *
+	 * @return Exceeded limit.
+	 */
+	public ScriptBudget.Limit getLimit() {
+		return limit;
+	}
+
+	/**
+	 * Returns budget which was exceeded.
+	 *
+	 * @return Exceeded budget.
+	 */
+	public ScriptBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns number of the instructions executed before the script was stopped.
+	 *
+	 * @return Number of the executed instructions.
+	 */
+	public long getInstructionCount() {
+		return instructionCount;
+	}
+
+	/**
+	 * Returns wall-clock time which elapsed before the script was stopped.
+	 *
+	 * @return Elapsed time in milliseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Returns number of the bytes allocated before the script was stopped.
+	 *
+	 * @return Number of the allocated bytes, or -1 if they were not measured.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+}
@@ -0,0 +1,172 @@
+/**
+ * ScriptBudgetUsage.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+
+/**
+ * Resources consumed by one invocation of the script. Usage is created when the invoking
+ * thread enters the context of the engine and it is updated by the context factory
+ * every time the instruction observer threshold is reached.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see ScriptBudget
+ */
+public class ScriptBudgetUsage {
+
+	/*
+	 * Reader of the thread allocated bytes, which is initialized only when it is used at first.
+	 */
+	private static class AllocatedBytesReader {
+		private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+		private static final Method ALLOCATED_BYTES_METHOD = findAllocatedBytesMethod();
+
+		private static Method findAllocatedBytesMethod() {
+			try {
+				Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+
+				if (!beanClass.isInstance(THREAD_BEAN)) {
+					return null;
+				}
+
+				Method supportedMethod = beanClass.getMethod("isThreadAllocatedMemorySupported");
+				Method enabledMethod = beanClass.getMethod("isThreadAllocatedMemoryEnabled");
+
+				if (!Boolean.TRUE.equals(supportedMethod.invoke(THREAD_BEAN)) || !Boolean.TRUE.equals(enabledMethod.invoke(THREAD_BEAN))) {
+					return null;
+				}
+
+				return beanClass.getMethod("getThreadAllocatedBytes", long.class);
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		private static long read(long threadId) {
+			if (ALLOCATED_BYTES_METHOD == null) {
+				return -1;
+			}
+
+			try {
+				return (Long)ALLOCATED_BYTES_METHOD.invoke(THREAD_BEAN, threadId);
+			} catch (Exception e) {
+				return -1;
+			}
+		}
+	}
+
+	private final ScriptBudget budget;
+	private final long startTime;
+	private final long maxTimeNanos;
+	private final long threadId;
+	private final long startAllocatedBytes;
+
+	private long instructionCount;
+	private long elapsedNanos;
+	private long allocatedBytes;
+
+	/**
+	 * Constructs usage of the passed budget, which starts at this moment on the current thread.
+	 *
+	 * @param budget Budget which limits the usage.
+	 */
+	public ScriptBudgetUsage(ScriptBudget budget) {
+		this.budget = budget;
+		this.startTime = System.nanoTime();
+		this.maxTimeNanos = budget.getMaxTime() * 1000000L;
+		this.threadId = Thread.currentThread().getId();
+		this.startAllocatedBytes = (budget.getMaxAllocatedBytes() > 0)? AllocatedBytesReader.read(threadId) : -1;
+	}
+
+	/**
+	 * Returns budget which limits this usage.
+	 *
+	 * @return Budget of this usage.
+	 */
+	public ScriptBudget getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Returns number of the executed instructions as they were counted by the context.
+	 *
+	 * @return Number of the executed instructions.
+	 */
+	public long getInstructionCount() {
+		return instructionCount;
+	}
+
+	/**
+	 * Returns wall-clock time which elapsed until the last check.
+	 *
+	 * @return Elapsed time in milliseconds.
+	 */
+	public long getElapsedTime() {
+		return elapsedNanos / 1000000L;
+	}
+
+	/**
+	 * Returns number of the bytes allocated by the invoking thread until the last check.
+	 *
+	 * @return Number of the allocated bytes, or -1 if they are not measured.
+	 */
+	public long getAllocatedBytes() {
+		return (startAllocatedBytes >= 0)? allocatedBytes : -1;
+	}
+
+	/**
+	 * Adds the executed instructions and checks all limits of the budget.
+	 *
+	 * @param instructions Number of the instructions executed since the last check.
+	 * @throws ScriptBudgetExceededError Thrown if some limit of the budget is exceeded.
+	 */
+	public void observe(int instructions) {
+		instructionCount += instructions;
+		elapsedNanos = System.nanoTime() - startTime;
+
+		long maxInstructions = budget.getMaxInstructions();
+		if (maxInstructions > 0 && instructionCount > maxInstructions) {
+			throw new ScriptBudgetExceededError(this, ScriptBudget.Limit.INSTRUCTIONS);
+		}
+
+		if (maxTimeNanos > 0 && elapsedNanos > maxTimeNanos) {
+			throw new ScriptBudgetExceededError(this, ScriptBudget.Limit.TIME);
+		}
+
+		if (startAllocatedBytes >= 0) {
+			long currentAllocatedBytes = AllocatedBytesReader.read(threadId);
+			allocatedBytes = (currentAllocatedBytes >= 0)? currentAllocatedBytes - startAllocatedBytes : allocatedBytes;
+
+			if (allocatedBytes > budget.getMaxAllocatedBytes()) {
+				throw new ScriptBudgetExceededError(this, ScriptBudget.Limit.ALLOCATED_BYTES);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ScriptBudgetUsage[instructions=" + instructionCount + ", time=" + getElapsedTime() + "ms, allocatedBytes=" + getAllocatedBytes() + "]";
+	}
+}
@@ -0,0 +1,287 @@
+/**
+ * ScriptBytecodeCache.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mozilla.javascript.CompilerEnvirons;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.DefiningClassLoader;
+import org.mozilla.javascript.Script;
+import org.mozilla.javascript.optimizer.ClassCompiler;
+
+import com.jsen.core.exceptions.InternalException;
+
+/**
+ * Persistent cache of the class files generated for the compiled scripts. Class files
+ * are stored in the directory which is specific for the Rhino version, optimization level,
+ * language version and instruction counting, so the change of any of them invalidates all stored scripts.
+ * Every script is loaded by its own class loader. Interpreted scripts are not cached.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngineFactory#setBytecodeCacheDirectory(File)
+ */
+public class ScriptBytecodeCache {
+	private static final String CLASS_NAME_PREFIX = "com.jsen.javascript.generated.Script";
+	private static final String FILE_SUFFIX = ".classes";
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+	private static final int FILE_FORMAT_VERSION = 1;
+
+	protected File directory;
+
+	private final AtomicLong hitCount;
+	private final AtomicLong missCount;
+
+	/**
+	 * Constructs bytecode cache which stores the class files into passed directory.
+	 *
+	 * @param directory Root directory of the cache, it is created if it does not exist.
+	 */
+	public ScriptBytecodeCache(File directory) {
+		this.directory = directory;
+		this.hitCount = new AtomicLong();
+		this.missCount = new AtomicLong();
+	}
+
+	/**
+	 * Returns root directory of the cache.
+	 *
+	 * @return Root directory of the cache.
+	 */
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns compiled script for the passed source. The script is loaded from the stored
+	 * class files, or compiled into class files which are then stored.
+	 *
+	 * @param cx Context which is used for compiling, its options are part of the key.
+	 * @param source Source of the script.
+	 * @param sourceName Name of the script source.
+	 * @return Compiled script or null if the context runs in the interpreted mode.
+	 */
+	public Script getScript(Context cx, String source, String sourceName) {
+		if (cx.getOptimizationLevel() < 0) {
+			return null;
+		}
+
+		String digest = toHex(ScriptCache.digest(sourceName + '\u0000' + source));
+		String className = CLASS_NAME_PREFIX + digest;
+		File versionDirectory = getVersionDirectory(cx);
+		File file = new File(versionDirectory, digest + FILE_SUFFIX);
+
+		Object[] classFiles = null;
+		if (file.isFile()) {
+			try {
+				classFiles = readClassFiles(file);
+			} catch (IOException e) {
+				file.delete();
+			}
+		}
+
+		if (classFiles != null) {
+			try {
+				Script script = loadScript(cx, classFiles);
+				hitCount.incrementAndGet();
+
+				return script;
+			} catch (LinkageError e) {
+				/* Corrupted or stale class files, e.g. ClassFormatError or VerifyError, so compile the script again */
+				file.delete();
+			}
+		}
+
+		missCount.incrementAndGet();
+
+		CompilerEnvirons compilerEnv = new CompilerEnvirons();
+		compilerEnv.initFromContext(cx);
+		ClassCompiler compiler = new ClassCompiler(compilerEnv);
+		classFiles = compiler.compileToClassFiles(source, sourceName, 1, className);
+
+		try {
+			writeClassFiles(versionDirectory, file, classFiles);
+		} catch (IOException e) {
+			// Script is still usable, it only will not be available after restart
+		}
+
+		return loadScript(cx, classFiles);
+	}
+
+	/**
+	 * Removes the directories of the other Rhino versions and compile options than the options of the passed context.
+	 *
+	 * @param cx Context of which options are current.
+	 * @return Number of the removed files.
+	 */
+	public int purgeStaleVersions(Context cx) {
+		File currentDirectory = getVersionDirectory(cx);
+		File[] versionDirectories = directory.listFiles();
+		int removed = 0;
+
+		if (versionDirectories == null) {
+			return 0;
+		}
+
+		for (File versionDirectory : versionDirectories) {
+			if (!versionDirectory.isDirectory() || versionDirectory.equals(currentDirectory)) {
+				continue;
+			}
+
+			File[] files = versionDirectory.listFiles();
+			if (files != null) {
+				for (File file : files) {
+					if (file.delete()) {
+						removed++;
+					}
+				}
+			}
+
+			versionDirectory.delete();
+		}
+
+		return removed;
+	}
+
+	/**
+	 * Returns number of the scripts that were loaded from the stored class files.
+	 *
+	 * @return Number of the cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns number of the scripts that had to be compiled.
+	 *
+	 * @return Number of the cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns directory of the class files for the Rhino version and compile options of the passed context.
+	 *
+	 * @param cx Context of which options should be used.
+	 * @return Directory of the class files.
+	 */
+	protected File getVersionDirectory(Context cx) {
+		String version = cx.getImplementationVersion() + '\u0000' + cx.getOptimizationLevel() + '\u0000' + cx.getLanguageVersion() + '\u0000' + (cx.getInstructionObserverThreshold() > 0) + '\u0000' + FILE_FORMAT_VERSION;
+		return new File(directory, toHex(ScriptCache.digest(version)));
+	}
+
+	private static Script loadScript(Context cx, Object[] classFiles) {
+		DefiningClassLoader loader = new DefiningClassLoader(cx.getApplicationClassLoader());
+		Class<?> mainClass = null;
+
+		for (int i = 0; i < classFiles.length; i += 2) {
+			Class<?> clazz = loader.defineClass((String)classFiles[i], (byte[])classFiles[i + 1]);
+			if (mainClass == null) {
+				mainClass = clazz;
+			}
+		}
+
+		loader.linkClass(mainClass);
+
+		try {
+			return (Script)mainClass.newInstance();
+		} catch (Exception e) {
+			throw new InternalException("Unable to instantiate compiled script", e);
+		}
+	}
+
+	private static Object[] readClassFiles(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+
+		try {
+			if (in.readInt() != FILE_FORMAT_VERSION) {
+				throw new IOException("Unsupported class files format");
+			}
+
+			int count = in.readInt();
+			Object[] classFiles = new Object[2 * count];
+
+			for (int i = 0; i < count; i++) {
+				classFiles[2 * i] = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				classFiles[2 * i + 1] = bytes;
+			}
+
+			return classFiles;
+		} finally {
+			in.close();
+		}
+	}
+
+	private static void writeClassFiles(File versionDirectory, File file, Object[] classFiles) throws IOException {
+		if (!versionDirectory.isDirectory() && !versionDirectory.mkdirs() && !versionDirectory.isDirectory()) {
+			throw new IOException("Unable to create cache directory " + versionDirectory);
+		}
+
+		/* Written into temporary file first, so the concurrent readers never see partial content */
+		File tempFile = File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, versionDirectory);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+		try {
+			out.writeInt(FILE_FORMAT_VERSION);
+			out.writeInt(classFiles.length / 2);
+
+			for (int i = 0; i < classFiles.length; i += 2) {
+				byte[] bytes = (byte[])classFiles[i + 1];
+				out.writeUTF((String)classFiles[i]);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			out.close();
+		} catch (IOException e) {
+			out.close();
+			tempFile.delete();
+			throw e;
+		}
+
+		if (!tempFile.renameTo(file)) {
+			tempFile.delete();
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(2 * bytes.length);
+
+		for (byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+
+		return hex.toString();
+	}
+}
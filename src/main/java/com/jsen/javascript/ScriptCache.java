@@ -0,0 +1,369 @@
+/**
+ * ScriptCache.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Script;
+
+import com.jsen.core.exceptions.InternalException;
+
+/**
+ * Bounded cache of the compiled scripts, which uses the least recently used eviction.
+ * Scripts are addressed by the digest of their source together with the compile options,
+ * so the same source compiled with the same options is parsed only once. Compiled scripts
+ * do not hold any scope, so the cache can be shared by more engines.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngineFactory#setScriptCache(ScriptCache)
+ */
+public class ScriptCache {
+	/**
+	 * Default maximal number of the cached scripts.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1024;
+
+	private static final String DIGEST_ALGORITHM = "SHA-1";
+
+	/**
+	 * Key of the compiled script.
+	 */
+	public static class ScriptKey {
+		private final byte[] digest;
+		private final int optimizationLevel;
+		private final int languageVersion;
+		private final String sourceName;
+		private final boolean observerCount;
+		private final int hash;
+
+		/**
+		 * Constructs key of the script.
+		 *
+		 * @param digest Digest of the script source.
+		 * @param optimizationLevel Optimization level used for compiling the script.
+		 * @param languageVersion Language version used for compiling the script.
+		 * @param sourceName Name of the script source.
+		 */
+		public ScriptKey(byte[] digest, int optimizationLevel, int languageVersion, String sourceName) {
+			this(digest, optimizationLevel, languageVersion, sourceName, false);
+		}
+
+		/**
+		 * Constructs key of the script.
+		 *
+		 * @param digest Digest of the script source.
+		 * @param optimizationLevel Optimization level used for compiling the script.
+		 * @param languageVersion Language version used for compiling the script.
+		 * @param sourceName Name of the script source.
+		 * @param observerCount Whether the script was compiled with the instruction counting.
+		 */
+		public ScriptKey(byte[] digest, int optimizationLevel, int languageVersion, String sourceName, boolean observerCount) {
+			this.digest = digest;
+			this.optimizationLevel = optimizationLevel;
+			this.languageVersion = languageVersion;
+			this.sourceName = sourceName;
+			this.observerCount = observerCount;
+
+			int hash = Arrays.hashCode(digest);
+			hash = 31 * hash + optimizationLevel;
+			hash = 31 * hash + languageVersion;
+			hash = 31 * hash + ((sourceName != null)? sourceName.hashCode() : 0);
+			hash = 31 * hash + ((observerCount)? 1 : 0);
+			this.hash = hash;
+		}
+
+		/**
+		 * Returns digest of the script source.
+		 *
+		 * @return Digest of the script source.
+		 */
+		public byte[] getDigest() {
+			return digest;
+		}
+
+		/**
+		 * Returns optimization level used for compiling the script.
+		 *
+		 * @return Optimization level used for compiling the script.
+		 */
+		public int getOptimizationLevel() {
+			return optimizationLevel;
+		}
+
+		/**
+		 * Returns language version used for compiling the script.
+		 *
+		 * @return Language version used for compiling the script.
+		 */
+		public int getLanguageVersion() {
+			return languageVersion;
+		}
+
+		/**
+		 * Returns name of the script source.
+		 *
+		 * @return Name of the script source.
+		 */
+		public String getSourceName() {
+			return sourceName;
+		}
+
+		/**
+		 * Tests whether the script was compiled with the instruction counting.
+		 *
+		 * @return True if the compiled script counts the executed instructions, otherwise false.
+		 */
+		public boolean isObserverCount() {
+			return observerCount;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (!(obj instanceof ScriptKey)) {
+				return false;
+			}
+
+			ScriptKey key = (ScriptKey)obj;
+			return hash == key.hash && optimizationLevel == key.optimizationLevel && languageVersion == key.languageVersion
+					&& observerCount == key.observerCount
+					&& ((sourceName == null)? key.sourceName == null : sourceName.equals(key.sourceName))
+					&& Arrays.equals(digest, key.digest);
+		}
+	}
+
+	protected int maxSize;
+
+	private final Map<ScriptKey, Script> scripts;
+	private final Lock lock;
+	private final AtomicLong hitCount;
+	private final AtomicLong missCount;
+	private final AtomicLong evictionCount;
+
+	/**
+	 * Constructs script cache with the default maximal size.
+	 */
+	public ScriptCache() {
+		this(DEFAULT_MAX_SIZE);
+	}
+
+	/**
+	 * Constructs script cache.
+	 *
+	 * @param maxSize Maximal number of the cached scripts.
+	 */
+	public ScriptCache(int maxSize) {
+		if (maxSize < 1) {
+			throw new IllegalArgumentException("Maximal size of the cache must be positive");
+		}
+
+		this.maxSize = maxSize;
+		this.lock = new ReentrantLock();
+		this.hitCount = new AtomicLong();
+		this.missCount = new AtomicLong();
+		this.evictionCount = new AtomicLong();
+		this.scripts = new LinkedHashMap<ScriptKey, Script>(16, 0.75f, true) {
+			private static final long serialVersionUID = 4113851398423733127L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ScriptKey, Script> eldest) {
+				if (size() > ScriptCache.this.maxSize) {
+					evictionCount.incrementAndGet();
+					return true;
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns compiled script for the passed source. If the script is not cached yet,
+	 * then it is compiled using the passed context and stored into cache.
+	 *
+	 * @param cx Context which is used for compiling, its options are part of the key.
+	 * @param source Source of the script.
+	 * @param sourceName Name of the script source.
+	 * @return Compiled script.
+	 */
+	public Script getScript(Context cx, String source, String sourceName) {
+		ScriptKey key = createKey(cx, source, sourceName);
+		Script script = getScript(key);
+
+		if (script == null) {
+			script = cx.compileString(source, sourceName, 1, null);
+			putScript(key, script);
+		}
+
+		return script;
+	}
+
+	/**
+	 * Returns cached script for the passed key.
+	 *
+	 * @param key Key of the script.
+	 * @return Cached script or null if there is no such script.
+	 */
+	public Script getScript(ScriptKey key) {
+		Script script;
+
+		lock.lock();
+		try {
+			script = scripts.get(key);
+		} finally {
+			lock.unlock();
+		}
+
+		if (script != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+		}
+
+		return script;
+	}
+
+	/**
+	 * Stores compiled script into cache.
+	 *
+	 * @param key Key of the script.
+	 * @param script Compiled script.
+	 */
+	public void putScript(ScriptKey key, Script script) {
+		lock.lock();
+		try {
+			scripts.put(key, script);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Creates key for the passed source and the options of the passed context.
+	 *
+	 * @param cx Context of which options are part of the key.
+	 * @param source Source of the script.
+	 * @param sourceName Name of the script source.
+	 * @return New key of the script.
+	 */
+	public ScriptKey createKey(Context cx, String source, String sourceName) {
+		return new ScriptKey(digest(source), cx.getOptimizationLevel(), cx.getLanguageVersion(), sourceName, cx.getInstructionObserverThreshold() > 0);
+	}
+
+	/**
+	 * Returns maximal number of the cached scripts.
+	 *
+	 * @return Maximal number of the cached scripts.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Returns number of the cached scripts.
+	 *
+	 * @return Number of the cached scripts.
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			return scripts.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns number of the lookups that found the script.
+	 *
+	 * @return Number of the cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns number of the lookups that did not find the script.
+	 *
+	 * @return Number of the cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns number of the scripts that were removed because the cache was full.
+	 *
+	 * @return Number of the evicted scripts.
+	 */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Removes all cached scripts and resets the counters.
+	 */
+	public void clear() {
+		lock.lock();
+		try {
+			scripts.clear();
+		} finally {
+			lock.unlock();
+		}
+
+		hitCount.set(0);
+		missCount.set(0);
+		evictionCount.set(0);
+	}
+
+	/**
+	 * Returns digest of the passed script source.
+	 *
+	 * @param source Source of the script.
+	 * @return Digest of the script source.
+	 */
+	protected static byte[] digest(String source) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+			return digest.digest(source.getBytes("UTF-8"));
+		} catch (NoSuchAlgorithmException e) {
+			throw new InternalException(e);
+		} catch (UnsupportedEncodingException e) {
+			throw new InternalException(e);
+		}
+	}
+}
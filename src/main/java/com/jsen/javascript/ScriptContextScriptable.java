@@ -24,6 +24,7 @@ import java.util.Set;
 
 import javax.script.Bindings;
 import javax.script.ScriptContext;
+import javax.script.SimpleScriptContext;
 
 import org.mozilla.javascript.ConsString;
 import org.mozilla.javascript.Context;
@@ -33,7 +34,9 @@ import org.mozilla.javascript.ScriptableObject;
 /**
  * Wrapper scope that makes available the binded properties 
  * from the script context - enables data binding as defined in JSR 223 API 
- * in the script engine.
+ * in the script engine. Properties of the simple script context with
+ * {@link ConcurrentBindings} are accessed without locking, properties of any other
+ * context are accessed under the monitor of the context.
  * 
  * @author Radim Loskot
  * @version 0.9
@@ -53,6 +56,19 @@ public class ScriptContextScriptable extends ScriptableObject {
 	public ScriptContextScriptable(ScriptContext context) {
 		this.context = context;
 	}
+	
+	/**
+	 * Constructs new wrapping scope above the passed top level scope.
+	 * 
+	 * @param context Context that contains the properties that should be made accessible.
+	 * @param topLevel Top level scope which becomes the prototype of this scope.
+	 */
+	public ScriptContextScriptable(ScriptContext context, Scriptable topLevel) {
+		this.context = context;
+		
+		setPrototype(topLevel);
+		setParentScope(null);
+	}
 
 	@Override
 	public String getClassName() {
@@ -67,9 +83,24 @@ public class ScriptContextScriptable extends ScriptableObject {
 	public ScriptContext getContext() {
 		return context;
 	}
+	
+	/**
+	 * Sets new wrapped script context, so this scope can be reused for another call.
+	 * Scope should be reused only if no function created by the previous call
+	 * can be called later, because such function would see the new context.
+	 * 
+	 * @param context New script context to be wrapped.
+	 */
+	public void setContext(ScriptContext context) {
+		this.context = context;
+	}
 
 	@Override
 	public boolean has(String name, Scriptable start) {
+		if (isLockFree()) {
+			return getBindingsWithName(name) != null;
+		}
+		
 		synchronized (context) {
 			return context.getAttributesScope(name) != -1;
 		}
@@ -82,26 +113,36 @@ public class ScriptContextScriptable extends ScriptableObject {
 	
 	@Override
 	public Object get(String name, Scriptable start) {
-		synchronized (context) {
-			int sourceScope = context.getAttributesScope(name);
-			if (sourceScope != -1) {
-				Object value = context.getAttribute(name, sourceScope);
-				return javaToJS(value, this);
-			} else {
-				return NOT_FOUND;
+		Object value;
+		
+		if (isLockFree()) {
+			value = lookup(name);
+		} else {
+			synchronized (context) {
+				int sourceScope = context.getAttributesScope(name);
+				value = (sourceScope != -1)? context.getAttribute(name, sourceScope) : NOT_FOUND;
 			}
 		}
+		
+		return (value != NOT_FOUND)? javaToJS(value, this) : NOT_FOUND;
 	}
 
 	@Override
 	public void put(String name, Scriptable start, Object value) {
 		if (start == this) {
+			value = JavaScriptEngine.jsToJava(value);
+			
+			if (isLockFree()) {
+				replaceOrPut(name, value);
+				return;
+			}
+			
 			synchronized (context) {
 				int destinationScope = context.getAttributesScope(name);
 				if (destinationScope == -1) {
 					destinationScope = ScriptContext.ENGINE_SCOPE;
 				}
-				context.setAttribute(name, JavaScriptEngine.jsToJava(value), destinationScope);
+				context.setAttribute(name, value, destinationScope);
 			}
 		} else {
 			start.put(name, start, value);
@@ -110,6 +151,14 @@ public class ScriptContextScriptable extends ScriptableObject {
 
 	@Override
 	public void delete(String name) {
+		if (isLockFree()) {
+			Bindings bindings = getBindingsWithName(name);
+			if (bindings != null) {
+				bindings.remove(name);
+			}
+			return;
+		}
+		
 		synchronized (context) {
 			int sourceScope = context.getAttributesScope(name);
 			if (sourceScope != -1) {
@@ -120,15 +169,38 @@ public class ScriptContextScriptable extends ScriptableObject {
 
 	@Override
 	public Object[] getIds() {
-		Set<String> idSet = new HashSet<String>();
+		if (isLockFree()) {
+			return collectIds();
+		}
 		
 		synchronized (context) {
-			for (int scope : context.getScopes()) {
-				Bindings bindings = context.getBindings(scope);
-				if (bindings != null) {
-					for (String id : bindings.keySet()) {
-						idSet.add(id);
-					}
+			return collectIds();
+		}
+	}
+	
+	/*
+	 * Bindings are accessed without the monitor of the context only if the context is
+	 * the simple script context, which has only engine and global scope, and all its bindings
+	 * are thread safe. Other contexts and bindings might rely on the locking of the context.
+	 */
+	private boolean isLockFree() {
+		return context.getClass() == SimpleScriptContext.class 
+				&& isConcurrent(context.getBindings(ScriptContext.ENGINE_SCOPE)) 
+				&& isConcurrent(context.getBindings(ScriptContext.GLOBAL_SCOPE));
+	}
+	
+	private static boolean isConcurrent(Bindings bindings) {
+		return bindings == null || bindings instanceof ConcurrentBindings;
+	}
+	
+	private Object[] collectIds() {
+		Set<String> idSet = new HashSet<String>();
+		
+		for (int scope : context.getScopes()) {
+			Bindings bindings = context.getBindings(scope);
+			if (bindings != null) {
+				for (String id : bindings.keySet()) {
+					idSet.add(id);
 				}
 			}
 		}
@@ -136,6 +208,51 @@ public class ScriptContextScriptable extends ScriptableObject {
 		return idSet.toArray(new String[idSet.size()]);
 	}
 	
+	private Object lookup(String name) {
+		Bindings engineBindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+		Object value = lookup(engineBindings, name);
+		
+		if (value == NOT_FOUND) {
+			value = lookup(context.getBindings(ScriptContext.GLOBAL_SCOPE), name);
+		}
+		
+		return value;
+	}
+	
+	private static Object lookup(Bindings bindings, String name) {
+		if (bindings instanceof ConcurrentBindings) {
+			return ((ConcurrentBindings)bindings).lookup(name, NOT_FOUND);
+		} else if (bindings == null) {
+			return NOT_FOUND;
+		}
+		
+		Object value = bindings.get(name);
+		return (value != null || bindings.containsKey(name))? value : NOT_FOUND;
+	}
+	
+	private void replaceOrPut(String name, Object value) {
+		Bindings engineBindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+		
+		if (engineBindings instanceof ConcurrentBindings && ((ConcurrentBindings)engineBindings).replaceExisting(name, value)) {
+			return;
+		}
+		
+		Bindings bindings = getBindingsWithName(name);
+		bindings = (bindings != null)? bindings : engineBindings;
+		bindings.put(name, value);
+	}
+	
+	private Bindings getBindingsWithName(String name) {
+		Bindings bindings = context.getBindings(ScriptContext.ENGINE_SCOPE);
+		
+		if (bindings != null && bindings.containsKey(name)) {
+			return bindings;
+		}
+		
+		bindings = context.getBindings(ScriptContext.GLOBAL_SCOPE);
+		return (bindings != null && bindings.containsKey(name))? bindings : null;
+	}
+	
 	/**
 	 * Converts java representation into nearest JavaScript representation.
 	 * 
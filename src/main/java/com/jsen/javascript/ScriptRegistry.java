@@ -0,0 +1,249 @@
+/**
+ * ScriptRegistry.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the scripts run by the engines, which maps the script names to their sizes,
+ * compile times and execution counts and times. Scripts with the same name share one entry.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngineFactory#setScriptRegistry(ScriptRegistry)
+ */
+public class ScriptRegistry {
+
+	/**
+	 * Statistics of one registered script.
+	 */
+	public static class ScriptEntry {
+		private final String name;
+		private volatile int size;
+		private final AtomicLong compileCount;
+		private final AtomicLong compileTime;
+		private final AtomicLong executionCount;
+		private final AtomicLong failureCount;
+		private final AtomicLong executionTime;
+
+		/**
+		 * Constructs entry of the script.
+		 *
+		 * @param name Name of the script.
+		 */
+		public ScriptEntry(String name) {
+			this.name = name;
+			this.size = -1;
+			this.compileCount = new AtomicLong();
+			this.compileTime = new AtomicLong();
+			this.executionCount = new AtomicLong();
+			this.failureCount = new AtomicLong();
+			this.executionTime = new AtomicLong();
+		}
+
+		/**
+		 * Returns name of the script.
+		 *
+		 * @return Name of the script.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Returns size of the most recently compiled source with this name.
+		 *
+		 * @return Number of the characters of the source, or -1 if it was not compiled yet.
+		 */
+		public int getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns number of the compilations, scripts loaded from the caches are not counted.
+		 *
+		 * @return Number of the compilations.
+		 */
+		public long getCompileCount() {
+			return compileCount.get();
+		}
+
+		/**
+		 * Returns total time spent by compiling.
+		 *
+		 * @return Total compile time in nanoseconds.
+		 */
+		public long getCompileTime() {
+			return compileTime.get();
+		}
+
+		/**
+		 * Returns number of the executions of the script.
+		 *
+		 * @return Number of the executions.
+		 */
+		public long getExecutionCount() {
+			return executionCount.get();
+		}
+
+		/**
+		 * Returns number of the executions which ended with the exception.
+		 *
+		 * @return Number of the failed executions.
+		 */
+		public long getFailureCount() {
+			return failureCount.get();
+		}
+
+		/**
+		 * Returns total time spent by executing.
+		 *
+		 * @return Total execution time in nanoseconds.
+		 */
+		public long getExecutionTime() {
+			return executionTime.get();
+		}
+
+		@Override
+		public String toString() {
+			return name + ": size=" + size + ", compiles=" + getCompileCount() + ", compileTime=" + getCompileTime() + "ns, executions="
+					+ getExecutionCount() + ", failures=" + getFailureCount() + ", executionTime=" + getExecutionTime() + "ns";
+		}
+	}
+
+	private final ConcurrentMap<String, ScriptEntry> entries;
+
+	/**
+	 * Constructs empty registry.
+	 */
+	public ScriptRegistry() {
+		this.entries = new ConcurrentHashMap<String, ScriptEntry>();
+	}
+
+	/**
+	 * Records compilation of the script.
+	 *
+	 * @param name Name of the script.
+	 * @param size Number of the characters of the source.
+	 * @param duration Compile time in nanoseconds.
+	 */
+	public void recordCompile(String name, int size, long duration) {
+		ScriptEntry entry = getOrCreateEntry(name);
+
+		entry.size = size;
+		entry.compileCount.incrementAndGet();
+		entry.compileTime.addAndGet(duration);
+	}
+
+	/**
+	 * Records execution of the script.
+	 *
+	 * @param name Name of the script.
+	 * @param duration Execution time in nanoseconds.
+	 * @param failed True if the execution ended with the exception.
+	 */
+	public void recordExecution(String name, long duration, boolean failed) {
+		ScriptEntry entry = getOrCreateEntry(name);
+
+		entry.executionCount.incrementAndGet();
+		entry.executionTime.addAndGet(duration);
+
+		if (failed) {
+			entry.failureCount.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns entry of the script with the passed name.
+	 *
+	 * @param name Name of the script.
+	 * @return Entry of the script or null if there is no such script.
+	 */
+	public ScriptEntry getScript(String name) {
+		return entries.get(name);
+	}
+
+	/**
+	 * Returns entries of all registered scripts.
+	 *
+	 * @return List of the script entries.
+	 */
+	public List<ScriptEntry> getScripts() {
+		return new ArrayList<ScriptEntry>(entries.values());
+	}
+
+	/**
+	 * Returns scripts which spent the most time by executing.
+	 *
+	 * @param count Maximal number of the returned scripts.
+	 * @return Script entries sorted by the total execution time in descending order.
+	 */
+	public List<ScriptEntry> getSlowestScripts(int count) {
+		List<ScriptEntry> scripts = getScripts();
+
+		Collections.sort(scripts, new Comparator<ScriptEntry>() {
+			@Override
+			public int compare(ScriptEntry entry1, ScriptEntry entry2) {
+				long time1 = entry1.getExecutionTime();
+				long time2 = entry2.getExecutionTime();
+
+				return (time1 < time2)? 1 : ((time1 == time2)? 0 : -1);
+			}
+		});
+
+		return (scripts.size() > count)? new ArrayList<ScriptEntry>(scripts.subList(0, count)) : scripts;
+	}
+
+	/**
+	 * Returns number of the registered scripts.
+	 *
+	 * @return Number of the registered scripts.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Removes all registered scripts.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	private ScriptEntry getOrCreateEntry(String name) {
+		ScriptEntry entry = entries.get(name);
+
+		if (entry == null) {
+			ScriptEntry newEntry = new ScriptEntry(name);
+			entry = entries.putIfAbsent(name, newEntry);
+			entry = (entry != null)? entry : newEntry;
+		}
+
+		return entry;
+	}
+}
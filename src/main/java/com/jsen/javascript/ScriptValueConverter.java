@@ -0,0 +1,295 @@
+/**
+ * ScriptValueConverter.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Function;
+import org.mozilla.javascript.NativeArray;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
+
+import com.jsen.javascript.java.TypedArrayType;
+
+/**
+ * Converter of the whole object graphs between the scripts and Java. Script arrays are converted
+ * into lists or into double arrays if they contain only numbers, script objects are converted
+ * into maps of their properties, and back, lists, sets, object arrays and primitive arrays
+ * are converted into script arrays and maps into script objects. Every graph is converted in one
+ * pass, shared objects are converted only once and the cycles are preserved. Converted
+ * collections are allocated with the size of the source.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see JavaScriptEngine#convertToJava(Object)
+ * @see JavaScriptEngine#convertToScript(Object)
+ */
+public class ScriptValueConverter {
+	private static final String DATE_CLASS_NAME = "Date";
+	
+	protected boolean primitiveArrays;
+	
+	/**
+	 * Constructs converter which converts numeric script arrays into double arrays.
+	 */
+	public ScriptValueConverter() {
+		this(true);
+	}
+	
+	/**
+	 * Constructs converter.
+	 * 
+	 * @param primitiveArrays True if the script arrays which contain only numbers 
+	 *                        should be converted into double arrays, otherwise they are converted into lists.
+	 */
+	public ScriptValueConverter(boolean primitiveArrays) {
+		this.primitiveArrays = primitiveArrays;
+	}
+	
+	/**
+	 * Tests whether the numeric script arrays are converted into double arrays.
+	 * 
+	 * @return True if the numeric script arrays are converted into double arrays, otherwise false.
+	 */
+	public boolean isPrimitiveArrays() {
+		return primitiveArrays;
+	}
+	
+	/**
+	 * Converts script value into Java value. Wrapped Java objects are unwrapped, undefined is converted into null,
+	 * functions are returned as they are. Context has to be entered, because the properties
+	 * of the script objects can be computed by the script getters.
+	 * 
+	 * @param value Script value to be converted.
+	 * @return Converted Java value, it is list, map, double array, string, number, boolean, date or unwrapped Java object.
+	 */
+	public Object toJava(Object value) {
+		return toJava(value, new IdentityHashMap<Object, Object>());
+	}
+	
+	/**
+	 * Converts Java value into script value. Objects which are not collections, maps or arrays
+	 * are wrapped as usually. Context has to be entered.
+	 * 
+	 * @param cx Entered context.
+	 * @param scope Scope of the created script objects.
+	 * @param value Java value to be converted.
+	 * @return Converted script value.
+	 */
+	public Object toScript(Context cx, Scriptable scope, Object value) {
+		return toScript(cx, scope, value, new IdentityHashMap<Object, Object>());
+	}
+	
+	/**
+	 * Converts script value and stores the converted objects into map of the already converted objects.
+	 * 
+	 * @param value Script value to be converted.
+	 * @param converted Map of the already converted script objects to their Java counterparts.
+	 * @return Converted Java value.
+	 */
+	protected Object toJava(Object value, Map<Object, Object> converted) {
+		if (value == null || value instanceof Undefined || value == Scriptable.NOT_FOUND) {
+			return null;
+		} else if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+			return value;
+		} else if (value instanceof CharSequence) {
+			return value.toString();
+		} else if (value instanceof Wrapper) {
+			return ((Wrapper)value).unwrap();
+		} else if (!(value instanceof Scriptable) || value instanceof Function) {
+			return value;
+		}
+		
+		Object result = converted.get(value);
+		
+		if (result != null) {
+			return result;
+		} else if (value instanceof NativeArray) {
+			return arrayToJava((NativeArray)value, converted);
+		} else if (DATE_CLASS_NAME.equals(((Scriptable)value).getClassName())) {
+			return Context.jsToJava(value, Date.class);
+		} else {
+			return objectToJava((Scriptable)value, converted);
+		}
+	}
+	
+	/**
+	 * Converts Java value and stores the converted objects into map of the already converted objects.
+	 * 
+	 * @param cx Entered context.
+	 * @param scope Scope of the created script objects.
+	 * @param value Java value to be converted.
+	 * @param converted Map of the already converted Java objects to their script counterparts.
+	 * @return Converted script value.
+	 */
+	protected Object toScript(Context cx, Scriptable scope, Object value, Map<Object, Object> converted) {
+		if (value == null || value instanceof Scriptable || value instanceof Number || value instanceof Boolean || value instanceof String) {
+			return value;
+		} else if (value instanceof Character) {
+			return value.toString();
+		}
+		
+		Object result = converted.get(value);
+		
+		if (result != null) {
+			return result;
+		} else if (value instanceof Collection<?>) {
+			Collection<?> collection = (Collection<?>)value;
+			Scriptable array = newArray(cx, scope, value, collection.size(), converted);
+			int i = 0;
+			
+			for (Object item : collection) {
+				array.put(i++, array, toScript(cx, scope, item, converted));
+			}
+			
+			return array;
+		} else if (value instanceof Object[]) {
+			Object[] items = (Object[])value;
+			Scriptable array = newArray(cx, scope, value, items.length, converted);
+			
+			for (int i = 0; i < items.length; i++) {
+				array.put(i, array, toScript(cx, scope, items[i], converted));
+			}
+			
+			return array;
+		} else if (value instanceof Map<?, ?>) {
+			Scriptable object = cx.newObject(scope);
+			converted.put(value, object);
+			
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)value).entrySet()) {
+				Object key = entry.getKey();
+				Object item = toScript(cx, scope, entry.getValue(), converted);
+				
+				if (key instanceof Integer && (Integer)key >= 0) {
+					object.put((Integer)key, object, item);
+				} else {
+					object.put(String.valueOf(key), object, item);
+				}
+			}
+			
+			return object;
+		}
+		
+		TypedArrayType arrayType = TypedArrayType.forArray(value);
+		
+		if (arrayType != null) {
+			int length = arrayType.getLength(value);
+			Object[] items = new Object[length];
+			
+			for (int i = 0; i < length; i++) {
+				items[i] = arrayType.get(value, i);
+			}
+			
+			result = cx.newArray(scope, items);
+			converted.put(value, result);
+			return result;
+		}
+		
+		return Context.javaToJS(value, scope);
+	}
+	
+	private Object arrayToJava(NativeArray array, Map<Object, Object> converted) {
+		long arrayLength = array.getLength();
+		
+		if (arrayLength > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Array is too large to be converted");
+		}
+		
+		int length = (int)arrayLength;
+		double[] numbers = (primitiveArrays && length > 0)? new double[length] : null;
+		List<Object> list = null;
+		
+		if (numbers == null) {
+			list = new ArrayList<Object>(length);
+			converted.put(array, list);
+		}
+		
+		for (int i = 0; i < length; i++) {
+			Object item = array.get(i, array);
+			
+			if (numbers != null) {
+				if (item instanceof Number) {
+					numbers[i] = ((Number)item).doubleValue();
+					continue;
+				}
+				
+				/* Array is not numeric, so move the already read numbers into list */
+				list = new ArrayList<Object>(length);
+				converted.put(array, list);
+				
+				for (int j = 0; j < i; j++) {
+					list.add(numbers[j]);
+				}
+				
+				numbers = null;
+			}
+			
+			list.add(toJava(item, converted));
+		}
+		
+		if (numbers != null) {
+			converted.put(array, numbers);
+			return numbers;
+		}
+		
+		return list;
+	}
+	
+	private Map<String, Object> objectToJava(Scriptable object, Map<Object, Object> converted) {
+		Object[] ids = object.getIds();
+		Map<String, Object> map = new LinkedHashMap<String, Object>(getMapCapacity(ids.length));
+		converted.put(object, map);
+		
+		for (Object id : ids) {
+			Object item;
+			
+			if (id instanceof Integer) {
+				item = object.get((Integer)id, object);
+			} else {
+				item = object.get(id.toString(), object);
+			}
+			
+			map.put(id.toString(), toJava(item, converted));
+		}
+		
+		return map;
+	}
+	
+	private static Scriptable newArray(Context cx, Scriptable scope, Object value, int length, Map<Object, Object> converted) {
+		Scriptable array = cx.newArray(scope, new Object[length]);
+		converted.put(value, array);
+		
+		return array;
+	}
+	
+	private static int getMapCapacity(int size) {
+		return (size < 3)? size + 1 : (int)(size / 0.75f) + 1;
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * HostedClassMembers.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript.java;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.jsen.core.reflect.ClassConstructor;
+import com.jsen.core.reflect.ClassFunction;
+import com.jsen.core.reflect.ClassMember;
+import com.jsen.core.reflect.FunctionMember;
+import com.jsen.core.reflect.ObjectGetter;
+import com.jsen.core.reflect.ObjectMembers;
+
+/**
+ * Class level snapshot of the resolved object members. Resolved members
+ * do not depend on the particular instance, so one snapshot can be shared
+ * by all hosted objects of the same class.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedClassMembers {
+	protected Class<?> objectClass;
+	protected Map<String, Set<ClassMember<?>>> namedMembers;
+	protected Map<String, OverloadResolver<FunctionMember>> namedFunctions;
+	protected Set<String> enumerableMemberNames;
+	protected String[] enumerableMemberNamesArray;
+	protected Set<ClassConstructor> constructors;
+	protected OverloadResolver<ClassConstructor> constructorsResolver;
+	protected ClassFunction objectGetter;
+	protected boolean hasNonObjectGetterGet;
+
+	/**
+	 * Constructs class members snapshot from the passed resolved object members.
+	 *
+	 * @param objectMembers Resolved object members of some instance of the class.
+	 */
+	public HostedClassMembers(ObjectMembers objectMembers) {
+		this.objectClass = objectMembers.getObject().getClass();
+		this.namedMembers = new HashMap<String, Set<ClassMember<?>>>();
+		this.namedFunctions = new HashMap<String, OverloadResolver<FunctionMember>>();
+
+		for (Map.Entry<String, Set<ClassMember<?>>> entry : objectMembers.getNamedMemberEtrySet()) {
+			String name = entry.getKey();
+			Set<ClassMember<?>> members = entry.getValue();
+			namedMembers.put(name, members);
+
+			Set<FunctionMember> functions = getFunctions(members);
+			if (functions != null) {
+				namedFunctions.put(name, new OverloadResolver<FunctionMember>(functions));
+			}
+		}
+
+		Set<String> enumerableNames = objectMembers.getEnumerableMemberNames();
+		this.enumerableMemberNames = Collections.unmodifiableSet(enumerableNames);
+		this.enumerableMemberNamesArray = enumerableNames.toArray(new String[enumerableNames.size()]);
+		this.constructors = objectMembers.getConstructors();
+		this.constructorsResolver = (constructors != null)? new OverloadResolver<ClassConstructor>(constructors) : null;
+		this.objectGetter = objectMembers.getObjectGetter();
+		this.hasNonObjectGetterGet = hasNonObjectGetterGet(objectClass);
+	}
+
+	/**
+	 * Returns class of which members are held.
+	 *
+	 * @return Class of which members are held.
+	 */
+	public Class<?> getObjectClass() {
+		return objectClass;
+	}
+
+	/**
+	 * Tests whether there is any member with the passed name.
+	 *
+	 * @param name Name of the member.
+	 * @return True if there is any member with the passed name, otherwise false.
+	 */
+	public boolean hasMemberWithName(String name) {
+		return namedMembers.containsKey(name);
+	}
+
+	/**
+	 * Returns all members with the passed name.
+	 *
+	 * @param name Name of the members.
+	 * @return Members with the passed name or null if there is not any.
+	 */
+	public Set<ClassMember<?>> getMembersByName(String name) {
+		return namedMembers.get(name);
+	}
+
+	/**
+	 * Returns resolver of all overloaded functions with the passed name.
+	 *
+	 * @param name Name of the functions.
+	 * @return Resolver of the functions or null if there is not any function
+	 *         or some member with this name is not a function.
+	 */
+	public OverloadResolver<FunctionMember> getFunctionsResolver(String name) {
+		return namedFunctions.get(name);
+	}
+
+	/**
+	 * Returns names of all enumerable members.
+	 *
+	 * @return Names of all enumerable members.
+	 */
+	public Set<String> getEnumerableMemberNames() {
+		return enumerableMemberNames;
+	}
+
+	/**
+	 * Returns constructors of the class.
+	 *
+	 * @return Constructors of the class.
+	 */
+	public Set<ClassConstructor> getConstructors() {
+		return constructors;
+	}
+
+	/**
+	 * Returns resolver of the constructors of the class.
+	 *
+	 * @return Resolver of the constructors or null if class does not have any constructors.
+	 */
+	public OverloadResolver<ClassConstructor> getConstructorsResolver() {
+		return constructorsResolver;
+	}
+
+	/**
+	 * Returns object getter of the class.
+	 *
+	 * @return Object getter function if there is any, otherwise null.
+	 */
+	public ClassFunction getObjectGetter() {
+		return objectGetter;
+	}
+
+	/**
+	 * Tests whether class implements the object getter and has also another
+	 * method with the same name, but with different arguments.
+	 *
+	 * @return True if class has any other non object getter get method, otherwise false.
+	 */
+	public boolean hasNonObjectGetterGet() {
+		return hasNonObjectGetterGet;
+	}
+
+	/**
+	 * Returns merged enumerable properties of this class and already known super IDs.
+	 *
+	 * @param superIds IDs that should be included into result array.
+	 * @return Array of the enumerable properties.
+	 */
+	public Object[] getIds(Object[] superIds) {
+		String[] membersNames = enumerableMemberNamesArray;
+		Object[] returnIds = new Object[superIds.length + membersNames.length];
+
+		System.arraycopy(superIds, 0, returnIds, 0, superIds.length);
+		System.arraycopy(membersNames, 0, returnIds, superIds.length, membersNames.length);
+
+		return returnIds;
+	}
+
+	/**
+	 * Returns the passed members as a set of functions.
+	 *
+	 * @param members Members which should be all functions.
+	 * @return Set of the functions or null if there is any member which is not a function.
+	 */
+	protected static Set<FunctionMember> getFunctions(Set<ClassMember<?>> members) {
+		if (members == null || members.isEmpty()) {
+			return null;
+		}
+
+		Set<FunctionMember> functions = new HashSet<FunctionMember>();
+		for (ClassMember<?> member : members) {
+			if (member instanceof ClassFunction) {
+				functions.add((ClassFunction)member);
+			} else {
+				return null;
+			}
+		}
+
+		return functions;
+	}
+
+	/**
+	 * Tests whether passed class implements the object getter and has also another
+	 * method with the same name, but with different arguments.
+	 *
+	 * @param objectClass Class to be tested.
+	 * @return True if class has any other non object getter get method, otherwise false.
+	 */
+	public static boolean hasNonObjectGetterGet(Class<?> objectClass) {
+		if (!ObjectGetter.class.isAssignableFrom(objectClass)) {
+			return false;
+		}
+
+		Class<?>[] getterArgs = ObjectGetter.METHOD_ARG_TYPES;
+		String getterName = ObjectGetter.METHOD_NAME;
+		for (Method method : objectClass.getMethods()) {
+			String methodName = method.getName();
+			Class<?>[] methodParams = method.getParameterTypes();
+			if (methodName.equals(getterName) && !Arrays.equals(methodParams, getterArgs)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
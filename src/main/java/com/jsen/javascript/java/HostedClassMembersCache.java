@@ -0,0 +1,203 @@
+/**
+ * HostedClassMembersCache.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript.java;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.jsen.core.reflect.ClassMembersResolverFactory;
+import com.jsen.core.reflect.DefaultObjectMembers;
+
+/**
+ * Concurrent cache of the class members that are resolved by one members resolver factory.
+ * Classes are held weakly by the keys, but resolved members are held softly and they
+ * reference their class strongly, so a cached class can unload only after the garbage
+ * collector clears its soft reference under the memory pressure.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedClassMembersCache {
+	/*
+	 * Key which is stored inside the map and holds the class weakly.
+	 */
+	private static class ClassKey extends WeakReference<Class<?>> {
+		private final int hash;
+
+		public ClassKey(Class<?> clazz, ReferenceQueue<Class<?>> queue) {
+			super(clazz, queue);
+			this.hash = System.identityHashCode(clazz);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (obj instanceof ClassKey) {
+				Class<?> clazz = get();
+				return clazz != null && clazz == ((ClassKey)obj).get();
+			} else if (obj instanceof LookupKey) {
+				return ((LookupKey)obj).clazz == get();
+			}
+
+			return false;
+		}
+	}
+
+	/*
+	 * Short living key that is used only for the lookups, so no reference object is allocated.
+	 */
+	private static class LookupKey {
+		private final Class<?> clazz;
+		private final int hash;
+
+		public LookupKey(Class<?> clazz) {
+			this.clazz = clazz;
+			this.hash = System.identityHashCode(clazz);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj instanceof ClassKey) {
+				return ((ClassKey)obj).get() == clazz;
+			} else if (obj instanceof LookupKey) {
+				return ((LookupKey)obj).clazz == clazz;
+			}
+
+			return false;
+		}
+	}
+
+	protected ClassMembersResolverFactory membersResolverFactory;
+
+	private final ConcurrentMap<Object, SoftReference<HostedClassMembers>> cache;
+	private final ReferenceQueue<Class<?>> queue;
+	private final AtomicLong hitCount;
+	private final AtomicLong missCount;
+
+	/**
+	 * Constructs new cache for the passed members resolver factory.
+	 *
+	 * @param membersResolverFactory Members resolver factory which is used for resolving of the class members.
+	 */
+	public HostedClassMembersCache(ClassMembersResolverFactory membersResolverFactory) {
+		this.membersResolverFactory = membersResolverFactory;
+		this.cache = new ConcurrentHashMap<Object, SoftReference<HostedClassMembers>>();
+		this.queue = new ReferenceQueue<Class<?>>();
+		this.hitCount = new AtomicLong();
+		this.missCount = new AtomicLong();
+	}
+
+	/**
+	 * Returns members resolver factory used by this cache.
+	 *
+	 * @return Members resolver factory used by this cache.
+	 */
+	public ClassMembersResolverFactory getMembersResolverFactory() {
+		return membersResolverFactory;
+	}
+
+	/**
+	 * Returns class members for the class of the passed object. If the class members
+	 * are not cached yet, they are resolved using the passed object.
+	 *
+	 * @param object Object of which class members should be returned.
+	 * @return Class members for the class of the passed object.
+	 */
+	public HostedClassMembers getClassMembers(Object object) {
+		Class<?> clazz = object.getClass();
+		SoftReference<HostedClassMembers> reference = cache.get(new LookupKey(clazz));
+		HostedClassMembers classMembers = (reference != null)? reference.get() : null;
+
+		if (classMembers != null) {
+			hitCount.incrementAndGet();
+			return classMembers;
+		}
+
+		missCount.incrementAndGet();
+		expungeStaleEntries();
+
+		DefaultObjectMembers objectMembers = DefaultObjectMembers.getObjectMembers(object, membersResolverFactory);
+		classMembers = new HostedClassMembers(objectMembers);
+		cache.put(new ClassKey(clazz, queue), new SoftReference<HostedClassMembers>(classMembers));
+
+		return classMembers;
+	}
+
+	/**
+	 * Returns number of the lookups that were served from the cache.
+	 *
+	 * @return Number of the cache hits.
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Returns number of the lookups that had to resolve the class members.
+	 *
+	 * @return Number of the cache misses.
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Returns number of the cached classes.
+	 *
+	 * @return Number of the cached classes.
+	 */
+	public int size() {
+		expungeStaleEntries();
+		return cache.size();
+	}
+
+	/**
+	 * Removes all cached class members and resets the counters.
+	 */
+	public void clear() {
+		cache.clear();
+		hitCount.set(0);
+		missCount.set(0);
+	}
+
+	private void expungeStaleEntries() {
+		Reference<? extends Class<?>> reference;
+		while ((reference = queue.poll()) != null) {
+			cache.remove(reference);
+		}
+	}
+}
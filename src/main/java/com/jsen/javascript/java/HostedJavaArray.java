@@ -0,0 +1,152 @@
+/**
+ * HostedJavaArray.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.java;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Wrapper;
+
+/**
+ * Script view of the Java primitive array. Items are read and written directly
+ * in the wrapped array without any copying, so the array can be shared by Java
+ * and the scripts. View behaves like the typed array, it has fixed length, writes
+ * out of its range are ignored and the written values are converted to the item type.
+ * Array prototype is used as its prototype, so the generic array functions work over it.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedJavaArray extends ScriptableObject implements Wrapper {
+	private static final long serialVersionUID = -1824561309718275370L;
+	
+	private static final String LENGTH_PROPERTY = "length";
+	private static final String BYTES_PER_ELEMENT_PROPERTY = "BYTES_PER_ELEMENT";
+	
+	protected Object array;
+	protected TypedArrayType type;
+	protected int length;
+	
+	/**
+	 * Constructs new view of the primitive array.
+	 * 
+	 * @param scope Parent scope where to place this view.
+	 * @param array Primitive array to be wrapped.
+	 */
+	public HostedJavaArray(Scriptable scope, Object array) {
+		this(scope, array, TypedArrayType.forArray(array));
+	}
+	
+	/**
+	 * Constructs new view of the primitive array of the passed type.
+	 * 
+	 * @param scope Parent scope where to place this view.
+	 * @param array Primitive array to be wrapped.
+	 * @param type Type of the array.
+	 */
+	public HostedJavaArray(Scriptable scope, Object array, TypedArrayType type) {
+		super(scope, ScriptableObject.getArrayPrototype(scope));
+		
+		if (type == null) {
+			throw new IllegalArgumentException("Passed object is not primitive array");
+		}
+		
+		this.array = array;
+		this.type = type;
+		this.length = type.getLength(array);
+	}
+	
+	/**
+	 * Returns type of the wrapped array.
+	 * 
+	 * @return Type of the wrapped array.
+	 */
+	public TypedArrayType getType() {
+		return type;
+	}
+	
+	@Override
+	public String getClassName() {
+		return type.getClassName();
+	}
+	
+	@Override
+	public Object get(int index, Scriptable start) {
+		return (index >= 0 && index < length)? type.get(array, index) : Scriptable.NOT_FOUND;
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		if (name.equals(LENGTH_PROPERTY)) {
+			return length;
+		} else if (name.equals(BYTES_PER_ELEMENT_PROPERTY)) {
+			return type.getBytesPerElement();
+		}
+		
+		return super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(int index, Scriptable start) {
+		return index >= 0 && index < length;
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return name.equals(LENGTH_PROPERTY) || name.equals(BYTES_PER_ELEMENT_PROPERTY) || super.has(name, start);
+	}
+	
+	@Override
+	public void put(int index, Scriptable start, Object value) {
+		if (index >= 0 && index < length) {
+			type.set(array, index, value);
+		}
+	}
+	
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		if (!name.equals(LENGTH_PROPERTY) && !name.equals(BYTES_PER_ELEMENT_PROPERTY)) {
+			super.put(name, start, value);
+		}
+	}
+	
+	@Override
+	public void delete(int index) {
+	}
+	
+	@Override
+	public Object[] getIds() {
+		Object[] superIds = super.getIds();
+		Object[] ids = new Object[length + superIds.length];
+		
+		for (int i = 0; i < length; i++) {
+			ids[i] = i;
+		}
+		
+		System.arraycopy(superIds, 0, ids, length, superIds.length);
+		return ids;
+	}
+	
+	@Override
+	public Object unwrap() {
+		return array;
+	}
+}
@@ -19,15 +19,12 @@
 
 package com.jsen.javascript.java;
 
-import java.lang.reflect.Method;
 import java.util.List;
 import java.util.Map;
 
-import org.apache.commons.lang3.ClassUtils;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.Undefined;
 
-import com.jsen.core.exceptions.InternalException;
 import com.jsen.core.reflect.ObjectMembers;
 
 /**
@@ -57,6 +54,17 @@ public class HostedJavaCollection extends HostedJavaObject {
 		super(scope, object);
 	}
 	
+	/**
+	 * Constructs new hosted Java collection.
+	 * 
+	 * @param scope Parent scope where to place this hosted object.
+	 * @param object Wrapped collection object.
+	 * @param classMembers Resolved class members of the wrapped object.
+	 */
+	public HostedJavaCollection(Scriptable scope, Object object, HostedClassMembers classMembers) {
+		super(scope, object, classMembers);
+	}
+	
 	@Override
 	public Object get(int index, Scriptable start) {
 		Object object;
@@ -84,26 +92,14 @@ public class HostedJavaCollection extends HostedJavaObject {
 	 * @return If this object wraps the collection then returns the value of the collection using given key, otherwise null.
 	 */
 	protected Object collectionGet(Object key) {
-		Method method = null;
 		Object result = Scriptable.NOT_FOUND;
 		
 		Object collectionObject = (object instanceof ArrayWrapper) ? ((ArrayWrapper)object).unwrap() : object;
-		Class<?> javaObjectType = collectionObject.getClass();
 		if (collectionObject instanceof List<?> && key instanceof Integer) {
-			try {
-				method = ClassUtils.getPublicMethod(javaObjectType, "get", int.class);
-			} catch (Exception e) {
-				throw new InternalException(e);
-			}
 			List<?> list = (List<?>)collectionObject;
 			int index = (Integer)key;
-			result = (list.size() > index)? list.get((Integer)key) : Scriptable.NOT_FOUND;
+			result = (index >= 0 && list.size() > index)? list.get(index) : Scriptable.NOT_FOUND;
 		} else if (collectionObject instanceof Map<?,?>) {
-			try {
-				method = ClassUtils.getPublicMethod(javaObjectType, "get", Object.class);
-			} catch (Exception e) {
-				throw new InternalException(e);
-			}
 			result = ((Map<?,?>)collectionObject).get(key);
 		}
 		
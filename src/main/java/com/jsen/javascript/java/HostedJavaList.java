@@ -0,0 +1,201 @@
+/**
+ * HostedJavaList.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.java;
+
+import java.util.ConcurrentModificationException;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
+
+import com.jsen.core.exceptions.FieldException;
+import com.jsen.javascript.JavaScriptEngine;
+
+/**
+ * Hosted Java collection which accesses the indexed properties and the length directly
+ * through the wrapped list, without resolving any class members. Lists without the random
+ * access are read sequentially using the list iterator, so the loop over the list does
+ * not traverse the list from its beginning for every item. Items set after the end of the list
+ * pad the list with nulls, but at most {@link #MAX_PADDING} of them.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedJavaList extends HostedJavaCollection {
+	private static final long serialVersionUID = 4719263015598720871L;
+	
+	private static final String LENGTH_PROPERTY = "length";
+	
+	/**
+	 * Maximal number of the null items which can be added when the item is set after the end of the list.
+	 */
+	public static final int MAX_PADDING = 1024;
+	
+	protected List<Object> list;
+	protected boolean randomAccess;
+	
+	private transient ListIterator<Object> cursor;
+	
+	/**
+	 * Constructs new hosted Java list.
+	 * 
+	 * @param scope Parent scope where to place this hosted object.
+	 * @param arrayWrapper Wrapper of the list which provides the array functions.
+	 * @param classMembers Resolved class members of the array wrapper.
+	 */
+	@SuppressWarnings("unchecked")
+	public HostedJavaList(Scriptable scope, ArrayWrapper arrayWrapper, HostedClassMembers classMembers) {
+		super(scope, arrayWrapper, classMembers);
+		
+		this.list = (List<Object>)arrayWrapper.unwrap();
+		this.randomAccess = list instanceof RandomAccess;
+	}
+	
+	@Override
+	public Object get(int index, Scriptable start) {
+		if (index < 0 || index >= list.size()) {
+			return Undefined.instance;
+		}
+		
+		Object value = (randomAccess)? list.get(index) : sequentialGet(index);
+		return wrapObject(value);
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		if (name.equals(LENGTH_PROPERTY)) {
+			return list.size();
+		}
+		
+		return super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(int index, Scriptable start) {
+		return index >= 0 && index < list.size();
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return name.equals(LENGTH_PROPERTY) || super.has(name, start);
+	}
+	
+	@Override
+	public void put(int index, Scriptable start, Object value) {
+		if (index < 0) {
+			throw new FieldException("Index of the list cannot be negative");
+		}
+		
+		value = toListValue(value);
+		
+		synchronized (this) {
+			cursor = null;
+		}
+		
+		try {
+			int size = list.size();
+			
+			if (index < size) {
+				list.set(index, value);
+				return;
+			}
+			
+			if (index - size > MAX_PADDING) {
+				throw new FieldException("Index " + index + " is too far after the end of the list of size " + size);
+			}
+			
+			for (int i = size; i < index; i++) {
+				list.add(null);
+			}
+			
+			list.add(value);
+		} catch (UnsupportedOperationException e) {
+			throw new FieldException("List is not modifiable");
+		}
+	}
+	
+	@Override
+	public void delete(int index) {
+		if (index >= 0 && index < list.size()) {
+			put(index, this, null);
+		}
+	}
+	
+	@Override
+	public Object[] getIds() {
+		Object[] memberIds = super.getIds();
+		int size = list.size();
+		Object[] ids = new Object[size + memberIds.length];
+		
+		for (int i = 0; i < size; i++) {
+			ids[i] = i;
+		}
+		
+		System.arraycopy(memberIds, 0, ids, size, memberIds.length);
+		return ids;
+	}
+	
+	/**
+	 * Returns item of the list without the random access. If the passed index follows
+	 * the previously read index, then the item is read by the kept list iterator.
+	 * Iterator is shared by all threads which read this wrapper, so it is used under its monitor.
+	 * 
+	 * @param index Index of the item.
+	 * @return Item of the list.
+	 */
+	protected synchronized Object sequentialGet(int index) {
+		try {
+			if (cursor == null || cursor.nextIndex() != index) {
+				cursor = list.listIterator(index);
+			}
+			
+			return cursor.next();
+		} catch (ConcurrentModificationException e) {
+			cursor = null;
+		} catch (NoSuchElementException e) {
+			cursor = null;
+		}
+		
+		return list.get(index);
+	}
+	
+	/**
+	 * Converts the script value into the value which is stored in the list.
+	 * 
+	 * @param value Script value.
+	 * @return Java value to be stored in the list.
+	 */
+	protected static Object toListValue(Object value) {
+		if (value == null || value instanceof Undefined) {
+			return null;
+		} else if (value instanceof CharSequence) {
+			return value.toString();
+		} else if (value instanceof Scriptable) {
+			return HostedJavaObject.unwrap(JavaScriptEngine.jsToJava(value));
+		}
+		
+		return value;
+	}
+}
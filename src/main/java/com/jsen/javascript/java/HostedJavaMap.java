@@ -0,0 +1,319 @@
+/**
+ * HostedJavaMap.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.java;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.Undefined;
+
+import com.jsen.core.exceptions.FieldException;
+
+/**
+ * Hosted Java collection which maps the properties directly to the entries of the wrapped map,
+ * so the map is live inside the scripts, e.g. <code>key in map</code>, <code>delete map[key]</code>
+ * and <code>for (key in map)</code> work over the map keys. Members of the map are accessible
+ * if there is no entry with the same name. Concurrent maps do not contain null values,
+ * so their entries are resolved by single lookup and their keys are enumerated without any locking.
+ * Enumeration copies all keys into an array, because Rhino enumerates the properties only through
+ * {@link #getIds()}, so every <code>for (key in map)</code> costs the copy of the key set.
+ * Property names are looked up as the string keys and indexes as the integer or string keys,
+ * if the map rejects the key type, e.g. the sorted map with other keys, then there is no such entry.
+ * New index entries get the key type of the existing keys, or the integer key if the map is empty.
+ * Keys of the other types are enumerated as their strings, but their entries are accessible only
+ * through the members of the map, e.g. <code>map.get(key)</code>.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedJavaMap extends HostedJavaCollection {
+	private static final long serialVersionUID = -5194528209373840167L;
+	
+	protected Map<Object, Object> map;
+	protected boolean concurrent;
+	
+	private boolean stringKeysRejected;
+	private boolean integerKeysRejected;
+	
+	/**
+	 * Constructs new hosted Java map.
+	 * 
+	 * @param scope Parent scope where to place this hosted object.
+	 * @param map Wrapped map.
+	 * @param classMembers Resolved class members of the wrapped map.
+	 */
+	@SuppressWarnings("unchecked")
+	public HostedJavaMap(Scriptable scope, Map<?, ?> map, HostedClassMembers classMembers) {
+		super(scope, map, classMembers);
+		
+		this.map = (Map<Object, Object>)map;
+		this.concurrent = map instanceof ConcurrentMap<?, ?>;
+	}
+	
+	@Override
+	public Object get(int index, Scriptable start) {
+		Object value = mapGet(index);
+		
+		if (value == Scriptable.NOT_FOUND) {
+			value = mapGet(String.valueOf(index));
+		}
+		
+		return (value != Scriptable.NOT_FOUND)? wrapObject(value) : Undefined.instance;
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		Object value = mapGet(name);
+		
+		return (value != Scriptable.NOT_FOUND)? wrapObject(value) : super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(int index, Scriptable start) {
+		return mapContainsKey(index) || mapContainsKey(String.valueOf(index));
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return mapContainsKey(name) || super.has(name, start);
+	}
+	
+	@Override
+	public void put(int index, Scriptable start, Object value) {
+		Object key = getIndexKey(index);
+		
+		if (!mapPut(key, value)) {
+			/* Type of the key is rejected now, so the index is stored under the other key type */
+			key = getIndexKey(index);
+			
+			if (isRejectedKey(key) || !mapPut(key, value)) {
+				throw new FieldException("Map does not accept the key " + index);
+			}
+		}
+	}
+	
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		if (!mapPut(name, value)) {
+			throw new FieldException("Map does not accept the key " + name);
+		}
+	}
+	
+	@Override
+	public void delete(int index) {
+		mapRemove(getIndexKey(index));
+	}
+	
+	@Override
+	public void delete(String name) {
+		if (mapContainsKey(name)) {
+			mapRemove(name);
+		} else {
+			super.delete(name);
+		}
+	}
+	
+	/**
+	 * Returns keys of the map. Keys are always copied into the new array. Keys of the concurrent maps
+	 * are collected while iterating over the weakly consistent key set, keys of other maps are copied
+	 * by the key set itself, so the synchronized maps are copied under their lock.
+	 * 
+	 * @return Keys of the map, integer keys are returned as indexes and other keys as strings.
+	 */
+	@Override
+	public Object[] getIds() {
+		Object[] ids;
+		
+		if (concurrent) {
+			ids = new Object[map.size()];
+			int i = 0;
+			
+			for (Object key : map.keySet()) {
+				if (i == ids.length) {
+					Object[] grownIds = new Object[ids.length * 2 + 1];
+					System.arraycopy(ids, 0, grownIds, 0, i);
+					ids = grownIds;
+				}
+				
+				ids[i++] = key;
+			}
+			
+			if (i != ids.length) {
+				Object[] trimmedIds = new Object[i];
+				System.arraycopy(ids, 0, trimmedIds, 0, i);
+				ids = trimmedIds;
+			}
+		} else {
+			ids = map.keySet().toArray();
+		}
+		
+		for (int i = 0; i < ids.length; i++) {
+			Object key = ids[i];
+			
+			if (!(key instanceof String) && !(key instanceof Integer && (Integer)key >= 0)) {
+				ids[i] = String.valueOf(key);
+			}
+		}
+		
+		return ids;
+	}
+	
+	@Override
+	protected Object collectionGet(Object key) {
+		return mapGet(key);
+	}
+	
+	/**
+	 * Returns value of the map entry.
+	 * 
+	 * @param key Key of the entry, it is string or integer.
+	 * @return Value of the entry or {@link Scriptable#NOT_FOUND} if there is no such entry or the map rejects the key.
+	 */
+	protected Object mapGet(Object key) {
+		if (isRejectedKey(key)) {
+			return Scriptable.NOT_FOUND;
+		}
+		
+		try {
+			Object value = map.get(key);
+			
+			if (value == null && (concurrent || !map.containsKey(key))) {
+				return Scriptable.NOT_FOUND;
+			}
+			
+			return value;
+		} catch (ClassCastException e) {
+			rejectKey(key);
+			return Scriptable.NOT_FOUND;
+		}
+	}
+	
+	/**
+	 * Tests whether the map contains the entry.
+	 * 
+	 * @param key Key of the entry, it is string or integer.
+	 * @return True if there is such entry, false if there is no such entry or the map rejects the key.
+	 */
+	protected boolean mapContainsKey(Object key) {
+		if (isRejectedKey(key)) {
+			return false;
+		}
+		
+		try {
+			return map.containsKey(key);
+		} catch (ClassCastException e) {
+			rejectKey(key);
+			return false;
+		}
+	}
+	
+	/**
+	 * Converts the script value and stores it into map.
+	 * 
+	 * @param key Key of the entry.
+	 * @param value Script value of the entry.
+	 * @return True if the value was stored, false if the map rejects the type of the key.
+	 */
+	protected boolean mapPut(Object key, Object value) {
+		value = HostedJavaList.toListValue(value);
+		
+		try {
+			if (value == null && concurrent) {
+				map.remove(key);
+			} else {
+				map.put(key, value);
+			}
+		} catch (UnsupportedOperationException e) {
+			throw new FieldException("Map is not modifiable");
+		} catch (ClassCastException e) {
+			rejectKey(key);
+			return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Removes the map entry.
+	 * 
+	 * @param key Key of the entry.
+	 */
+	protected void mapRemove(Object key) {
+		try {
+			map.remove(key);
+		} catch (UnsupportedOperationException e) {
+			throw new FieldException("Map is not modifiable");
+		} catch (ClassCastException e) {
+			rejectKey(key); // There cannot be such entry
+		}
+	}
+	
+	/*
+	 * Index keeps the key of its existing entry, otherwise it gets the key type which is not rejected
+	 * and which is used by the map, so the string keys are not put into the map with the integer keys.
+	 */
+	private Object getIndexKey(int index) {
+		if (mapContainsKey(index)) {
+			return index;
+		}
+		
+		String name = String.valueOf(index);
+		
+		if (mapContainsKey(name) || integerKeysRejected) {
+			return name;
+		} else if (stringKeysRejected) {
+			return index;
+		}
+		
+		return (sampleKey() instanceof String)? name : (Object)index;
+	}
+	
+	private Object sampleKey() {
+		try {
+			Iterator<Object> keys = map.keySet().iterator();
+			return (keys.hasNext())? keys.next() : null;
+		} catch (ConcurrentModificationException e) {
+			return null;
+		} catch (NoSuchElementException e) {
+			return null;
+		}
+	}
+	
+	/*
+	 * Comparator of the sorted map does not change, so once the key type is rejected, it is not probed again.
+	 */
+	private boolean isRejectedKey(Object key) {
+		return (key instanceof String)? stringKeysRejected : integerKeysRejected;
+	}
+	
+	private void rejectKey(Object key) {
+		if (key instanceof String) {
+			stringKeysRejected = true;
+		} else {
+			integerKeysRejected = true;
+		}
+	}
+}
@@ -43,6 +43,8 @@ import com.jsen.core.reflect.ClassFunction;
 import com.jsen.core.reflect.FunctionMember;
 import com.jsen.core.reflect.InvocableMember;
 import com.jsen.javascript.JavaScriptEngine;
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
 
 /**
  * Creates function scope for native Java method - wraps the native Java method
@@ -68,7 +70,7 @@ public class HostedJavaMethod extends FunctionObject {
 	private static final long serialVersionUID = -5644060115581311028L;
 	
 	private Object object;
-	private Set<FunctionMember> objectFunctions;
+	private OverloadResolver<FunctionMember> objectFunctions;
 	
 	/**
 	 * Constructs new hosted Java method for given parent scope, of the passed object and with the passed overloaded function members.
@@ -78,11 +80,21 @@ public class HostedJavaMethod extends FunctionObject {
 	 * @param objectFunctions Overloaded function members which should have the same name.
 	 */
 	public HostedJavaMethod(Scriptable scope, Object object, Set<? extends FunctionMember> objectFunctions) {
-		super(objectFunctions.iterator().next().getMember().getName(), FUNCTION_METHOD, scope);
+		this(scope, object, new OverloadResolver<FunctionMember>(new HashSet<FunctionMember>(objectFunctions)));
+	}
+	
+	/**
+	 * Constructs new hosted Java method for given parent scope, of the passed object and with the passed overloaded function members.
+	 * 
+	 * @param scope Scope to become the parent scope of this function.
+	 * @param object Object with the wrapped method.
+	 * @param objectFunctions Resolver of the overloaded function members which should have the same name, it might be shared with other methods.
+	 */
+	public HostedJavaMethod(Scriptable scope, Object object, OverloadResolver<FunctionMember> objectFunctions) {
+		super(objectFunctions.getMembers().iterator().next().getMember().getName(), FUNCTION_METHOD, scope);
 		
 		this.object = object;
-		this.objectFunctions = new HashSet<FunctionMember>();
-		this.objectFunctions.addAll(objectFunctions);
+		this.objectFunctions = objectFunctions;
 		
 		TopLevel topLevel = JavaScriptEngine.getObjectTopLevel(scope);
 		Scriptable builtinFunction = topLevel.getBuiltinCtor(Builtins.Function);
@@ -113,7 +125,7 @@ public class HostedJavaMethod extends FunctionObject {
 	 * @return All associated function members.
 	 */
 	public Set<? extends FunctionMember> getAttachedObjectFunctions() {
-		return objectFunctions;
+		return objectFunctions.getMembers();
 	}
 	
 	/**
@@ -122,30 +134,40 @@ public class HostedJavaMethod extends FunctionObject {
 	 * @param objectFunction New function member to be attached.
 	 */
 	public void attachObjectFunction(FunctionMember objectFunction) {
-		this.objectFunctions.add(objectFunction);
+		Set<FunctionMember> functions = new HashSet<FunctionMember>(objectFunctions.getMembers());
+		functions.add(objectFunction);
+		
+		this.objectFunctions = new OverloadResolver<FunctionMember>(functions);
 	}
 	
 	@Override
 	public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
-		InvocableMember<?> nearestInvocable = getNearestObjectFunction(args, objectFunctions);
+		ResolvedInvocation nearestInvocation = objectFunctions.resolve(args);
 
-		if (nearestInvocable == null) {
+		if (nearestInvocation == null) {
 			throw new FunctionException("Unable to match nearest function");
 		}
 		
-		FunctionMember nearestFunctionObject = (FunctionMember)nearestInvocable;
+		FunctionMember nearestFunctionObject = (FunctionMember)nearestInvocation.getMember();
 		
 		Method functionMethod = nearestFunctionObject.getMember();
 		Class<?> returnType = functionMethod.getReturnType();
 		
-		Class<?> expectedTypes[] = functionMethod.getParameterTypes();
-		Object[] castedArgs = castArgs(expectedTypes, args);
+		Object[] castedArgs = nearestInvocation.castArgs(args);
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		long startTime = (metrics.isEnabled())? System.nanoTime() : 0;
+		boolean failed = true;
 		
 		try {
 			 Object returned = functionMethod.invoke(object, castedArgs);
+			 failed = false;
 			 return (returnType == Void.class)? Undefined.instance : returned;
 		} catch (Exception e) {
 			throw new UnknownException("Unable to invoke function " + nearestFunctionObject.getName(), e);
+		} finally {
+			if (startTime != 0) {
+				metrics.record(ScriptMetrics.Operation.HOST_CALL, EngineMetrics.getCurrentScriptName(), System.nanoTime() - startTime, failed);
+			}
 		}
 	}
 	
@@ -205,49 +227,21 @@ public class HostedJavaMethod extends FunctionObject {
 	public static Object[] castArgs(Class<?>[] expectedTypes, Object... args) {
 		if (expectedTypes != null && args != null) {
 
-			if (expectedTypes.length <= args.length + 1 && expectedTypes.length > 0) {
-				Class<?> lastType = expectedTypes[expectedTypes.length - 1];
-				if (lastType.isArray()) {
-					Class<?> arrayType = lastType.getComponentType();
-					
-					boolean maybeVarargs = true;
-					if (expectedTypes.length == args.length) {
-						Object lastArg = args[args.length - 1];
-						Class<?> lastArgClass = (lastArg != null)? lastArg.getClass() : null;
-						maybeVarargs = lastArgClass != null && !ClassUtils.isAssignable(lastArgClass, lastType);
-					}
-					
-					if (maybeVarargs) {
-						for (int i = expectedTypes.length - 1; i < args.length; i++) {
-							if (args[i] == null) {
-								continue;
-							}
-							Class<?> argType = args[i].getClass();
-							
-							if (!ClassUtils.isAssignable(argType, arrayType)) {
-								maybeVarargs = false;
-								break;
-							}
-						}
-						
-						if (maybeVarargs) {
-							Object[] oldArgs = args;
-							args = new Object[expectedTypes.length];
-							
-							for (int i = 0; i < expectedTypes.length - 1; i++) {
-								args[i] = oldArgs[i];
-							}
-							
-							Object[] varargs = new Object[oldArgs.length - expectedTypes.length + 1];
-							
-							for (int i = expectedTypes.length - 1; i < oldArgs.length; i++) {
-								varargs[i - expectedTypes.length + 1] = oldArgs[i];
-							}
-							
-							args[expectedTypes.length - 1] = varargs;
-						}
-					}
+			if (isVarargsCall(expectedTypes, args)) {
+				Object[] oldArgs = args;
+				args = new Object[expectedTypes.length];
+				
+				for (int i = 0; i < expectedTypes.length - 1; i++) {
+					args[i] = oldArgs[i];
+				}
+				
+				Object[] varargs = new Object[oldArgs.length - expectedTypes.length + 1];
+				
+				for (int i = expectedTypes.length - 1; i < oldArgs.length; i++) {
+					varargs[i - expectedTypes.length + 1] = oldArgs[i];
 				}
+				
+				args[expectedTypes.length - 1] = varargs;
 			}
 			
 			if (expectedTypes.length == args.length) {
@@ -278,6 +272,47 @@ public class HostedJavaMethod extends FunctionObject {
 		return null;
 	}
 	
+	/**
+	 * Tests whether the passed arguments should be passed as a variable arguments into given expected types.
+	 * 
+	 * @param expectedTypes Types into which should be casted the given arguments.
+	 * @param args Arguments to be casted.
+	 * @return True if the trailing arguments should be packed into array, otherwise false.
+	 */
+	public static boolean isVarargsCall(Class<?>[] expectedTypes, Object[] args) {
+		boolean maybeVarargs = false;
+		
+		if (expectedTypes.length <= args.length + 1 && expectedTypes.length > 0) {
+			Class<?> lastType = expectedTypes[expectedTypes.length - 1];
+			if (lastType.isArray()) {
+				Class<?> arrayType = lastType.getComponentType();
+				
+				maybeVarargs = true;
+				if (expectedTypes.length == args.length) {
+					Object lastArg = args[args.length - 1];
+					Class<?> lastArgClass = (lastArg != null)? lastArg.getClass() : null;
+					maybeVarargs = lastArgClass != null && !ClassUtils.isAssignable(lastArgClass, lastType);
+				}
+				
+				if (maybeVarargs) {
+					for (int i = expectedTypes.length - 1; i < args.length; i++) {
+						if (args[i] == null) {
+							continue;
+						}
+						Class<?> argType = args[i].getClass();
+						
+						if (!ClassUtils.isAssignable(argType, arrayType)) {
+							maybeVarargs = false;
+							break;
+						}
+					}
+				}
+			}
+		}
+		
+		return maybeVarargs;
+	}
+	
 	public static String getFunctionName(Function function) {
 		if (function instanceof BaseFunction) {
 			return "function " + ((BaseFunction)function).getFunctionName() + "()";
@@ -296,7 +331,8 @@ public class HostedJavaMethod extends FunctionObject {
 		Scriptable scope = function.getParentScope();
 		ObjectTopLevel topLevel = JavaScriptEngine.getObjectTopLevel(scope);
 		if (topLevel != null) {
-			Context cx = topLevel.getBrowserScriptEngine().enterContext();
+			JavaScriptEngine<?> scriptEngine = topLevel.getBrowserScriptEngine();
+			Context cx = scriptEngine.enterContext();
 			try {
 				function.call(cx, scope, scope, args);
 			} catch (Exception ex) {
@@ -306,7 +342,7 @@ public class HostedJavaMethod extends FunctionObject {
 					throw new WrappedException(e);
 				}
 			} finally {
-				Context.exit();
+				scriptEngine.exitContext();
 			}
 		}
 	}
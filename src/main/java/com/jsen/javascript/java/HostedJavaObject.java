@@ -21,9 +21,9 @@ package com.jsen.javascript.java;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
-import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang3.ClassUtils;
 import org.mozilla.javascript.Context;
@@ -46,11 +46,13 @@ import com.jsen.core.reflect.ClassFunction;
 import com.jsen.core.reflect.ClassMember;
 import com.jsen.core.reflect.ConstructorMember;
 import com.jsen.core.reflect.DefaultObjectMembers;
-import com.jsen.core.reflect.InvocableMember;
+import com.jsen.core.reflect.FunctionMember;
 import com.jsen.core.reflect.ObjectGetter;
 import com.jsen.core.reflect.ObjectMembers;
 import com.jsen.javascript.JavaScriptEngine;
 import com.jsen.javascript.JsCallback;
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
 import com.jsen.javascript.wrap.FunctionJsCallbackAdapter;
 
 /**
@@ -68,7 +70,17 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	
 	protected boolean hasNonObjectGetterGet;
 		
+	/**
+	 * Object members from which was this object constructed, null if it was constructed from the class members.
+	 */
 	protected ObjectMembers objectMembers;
+	protected HostedClassMembers classMembers;
+	
+	/**
+	 * Already created function objects, so the same function object is returned for every access of the same member.
+	 * Wrapper can be shared by more threads, so the map is concurrent.
+	 */
+	protected volatile ConcurrentMap<String, HostedJavaMethod> hostedMethods;
 	
 	/**
 	 * Constructs new scope representing the native Java object.
@@ -87,26 +99,27 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	 * @param objectMembers Object and its members to be put into this new scope.
 	 */
 	public HostedJavaObject(Scriptable scope, ObjectMembers objectMembers) {
-		super(objectMembers.getObject(), scope, null);
+		this(scope, objectMembers.getObject(), new HostedClassMembers(objectMembers));
 		
 		this.objectMembers = objectMembers;
+	}
+	
+	/**
+	 * Constructs new scope for the passed object and its already resolved class members.
+	 * 
+	 * @param scope Scope to become the parent scope of this Java object.
+	 * @param object Java object to be wrapped.
+	 * @param classMembers Resolved class members of the wrapped object, usually shared by all objects of the same class.
+	 */
+	public HostedJavaObject(Scriptable scope, Object object, HostedClassMembers classMembers) {
+		super(object, scope, null);
+		
+		this.classMembers = classMembers;
+		this.hasNonObjectGetterGet = classMembers.hasNonObjectGetterGet();
 		
 		TopLevel topLevel = JavaScriptEngine.getObjectTopLevel(scope);
 		Scriptable builtinObject = topLevel.getBuiltinCtor(Builtins.Object);
 		setPrototype(builtinObject);
-		
-		if (object instanceof ObjectGetter) {
-			Class<?>[] getterArgs = ObjectGetter.METHOD_ARG_TYPES;
-			String getterName = ObjectGetter.METHOD_NAME;
-			for (Method method : objectClass.getMethods()) {
-				String methodName = method.getName();
-				Class<?>[] methodParams = method.getParameterTypes();
-				if (methodName.equals(getterName) && !Arrays.equals(methodParams, getterArgs)) {
-					hasNonObjectGetterGet = true;
-					break;
-				}
-			}
-		}
 	}
 	
 	@Override
@@ -124,24 +137,23 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 		Scriptable result = new NativeObject();
 		result.setParentScope(getParentScope());
 		
-		Set<ClassConstructor> constructors = objectMembers.getConstructors();
+		Set<ClassConstructor> constructors = classMembers.getConstructors();
 		
 		if (constructors == null || constructors.isEmpty()) {
 			throw new ObjectException("Object does not contain any constructors!");
 		}
 		
-		InvocableMember<?> nearestInvocable = HostedJavaMethod.getNearestObjectFunction(args, constructors);
+		ResolvedInvocation nearestInvocation = classMembers.getConstructorsResolver().resolve(args);
 
-		if (nearestInvocable == null) {
+		if (nearestInvocation == null) {
 			throw new FunctionException("Unable to match nearest constructor");
 		}
 		
-		ConstructorMember nearestConstructorMember = (ConstructorMember)nearestInvocable;
+		ConstructorMember nearestConstructorMember = (ConstructorMember)nearestInvocation.getMember();
 		
 		Constructor<?> constructor = nearestConstructorMember.getMember();
 		
-		Class<?> expectedTypes[] = constructor.getParameterTypes();
-		Object[] castedArgs = HostedJavaMethod.castArgs(expectedTypes, args);
+		Object[] castedArgs = nearestInvocation.castArgs(args);
 		
 		try {
 			Object newInstance = constructor.newInstance(castedArgs);
@@ -182,7 +194,7 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 		
 	@Override
 	public void put(String name, Scriptable start, Object value) {
-		if (objectMembers.hasMemberWithName(name)) {
+		if (classMembers.hasMemberWithName(name)) {
 			hostPut(name, value);
 		} else {
 			super.put(name, start, value);
@@ -191,7 +203,7 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	
 	@Override
 	public void delete(String name) {
-		if (objectMembers.hasMemberWithName(name)) {
+		if (classMembers.hasMemberWithName(name)) {
 			hostDelete(name);
 		} else {
 			super.delete(name);
@@ -206,13 +218,13 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 			return hasNonObjectGetterGet;
 		}
 		
-		return (hasProperty)? true : objectMembers.hasMemberWithName(name);
+		return (hasProperty)? true : classMembers.hasMemberWithName(name);
 	}
 	
 	@Override
 	public Object[] getIds() {
 		Object[] superIds = super.getAllIds();
-		return getIds(objectMembers, superIds);
+		return classMembers.getIds(superIds);
 	}
 		
 	@Override
@@ -255,8 +267,8 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	 * @param value Value to be set into field.
 	 */
 	protected void hostPut(String name, Object value) {
-		if (objectMembers.hasMemberWithName(name)) {
-			Set<ClassMember<?>> members = objectMembers.getMembersByName(name);
+		if (classMembers.hasMemberWithName(name)) {
+			Set<ClassMember<?>> members = classMembers.getMembersByName(name);
 			
 			if (members == null || members.isEmpty()) {
 				throw new FieldException("Scope does not contain property with this name!");
@@ -282,14 +294,14 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	protected Object hostGet(String name) {
 		Object result = Scriptable.NOT_FOUND;
 		
-		if (objectMembers.hasMemberWithName(name)) {
-			Set<ClassMember<?>> members = objectMembers.getMembersByName(name);
+		if (classMembers.hasMemberWithName(name)) {
+			Set<ClassMember<?>> members = classMembers.getMembersByName(name);
 			
 			if (members == null || members.isEmpty()) {
 				return Scriptable.NOT_FOUND;
 			}
 			
-			result = wrapGet(members);
+			result = wrapGet(name, members);
 		}
 		
 		return result;
@@ -334,33 +346,47 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 		}
 	}
 	
-	private Object wrapGet(Set<ClassMember<?>> members) {
+	private Object wrapGet(String name, Set<ClassMember<?>> members) {
 		Object result = Scriptable.NOT_FOUND;
 		ClassMember<?> firstMember = members.iterator().next();
 		if (firstMember instanceof ClassField) {
 			result = hostGet((ClassField)firstMember, object);
 		} else if (firstMember instanceof ClassFunction) {
-			Set<ClassFunction> functions = new HashSet<ClassFunction>();
-			boolean failed = false;
-			for (ClassMember<?> member : members) {
-				if (member instanceof ClassFunction) {
-					functions.add((ClassFunction)member);
-				} else {
-					failed = true;
-					break;
-				}
-			}
-			if (!failed) {
-				result = hostFunctionGet(functions);
-			}
+			result = hostFunctionGet(name);
 		}
 		
 		return result;
 
 	}
 
-	private Object hostFunctionGet(Set<ClassFunction> functions) {
-		return new HostedJavaMethod(this, object, functions);
+	private Object hostFunctionGet(String name) {
+		ConcurrentMap<String, HostedJavaMethod> methods = hostedMethods;
+		HostedJavaMethod method = (methods != null)? methods.get(name) : null;
+		
+		if (method == null) {
+			OverloadResolver<FunctionMember> functions = classMembers.getFunctionsResolver(name);
+			
+			if (functions == null) {
+				return Scriptable.NOT_FOUND;
+			}
+			
+			if (methods == null) {
+				synchronized (this) {
+					methods = hostedMethods;
+					
+					if (methods == null) {
+						methods = new ConcurrentHashMap<String, HostedJavaMethod>();
+						hostedMethods = methods;
+					}
+				}
+			}
+			
+			method = new HostedJavaMethod(this, object, functions);
+			HostedJavaMethod previousMethod = methods.putIfAbsent(name, method);
+			method = (previousMethod != null)? previousMethod : method;
+		}
+		
+		return method;
 	}
 	
 	/**
@@ -396,11 +422,22 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	 * @param value Value to be put into passed field.
 	 */
 	public static void hostPut(ClassField objectField, Object object, Object value) {
-		object = JavaScriptEngine.jsToJava(object);
-		value = JavaScriptEngine.jsToJava(value);
-		Class<?> type = objectField.getFieldType();
-		value = wrap(type, value);
-		objectField.set(object, value);
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		long startTime = (metrics.isEnabled())? System.nanoTime() : 0;
+		boolean failed = true;
+		
+		try {
+			object = JavaScriptEngine.jsToJava(object);
+			value = JavaScriptEngine.jsToJava(value);
+			Class<?> type = objectField.getFieldType();
+			value = wrap(type, value);
+			objectField.set(object, value);
+			failed = false;
+		} finally {
+			if (startTime != 0) {
+				metrics.record(ScriptMetrics.Operation.HOST_PUT, EngineMetrics.getCurrentScriptName(), System.nanoTime() - startTime, failed);
+			}
+		}
 	}
 	
 	/**
@@ -411,9 +448,20 @@ public class HostedJavaObject extends ObjectScriptable implements Wrapper, Funct
 	 * @return Value retrieved from the passed field.
 	 */
 	public static Object hostGet(ClassField objectField, Object object) {
-		object = JavaScriptEngine.jsToJava(object);
-		Object value = objectField.get(object);
-		return HostedJavaObject.unwrap(value);
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		long startTime = (metrics.isEnabled())? System.nanoTime() : 0;
+		boolean failed = true;
+		
+		try {
+			object = JavaScriptEngine.jsToJava(object);
+			Object value = objectField.get(object);
+			failed = false;
+			return HostedJavaObject.unwrap(value);
+		} finally {
+			if (startTime != 0) {
+				metrics.record(ScriptMetrics.Operation.HOST_GET, EngineMetrics.getCurrentScriptName(), System.nanoTime() - startTime, failed);
+			}
+		}
 	}
 
 	// FIXME: It could be here some adapter/registry mechanism here
@@ -20,6 +20,7 @@
 package com.jsen.javascript.java;
 
 import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ContextFactory;
 import org.mozilla.javascript.Function;
 import org.mozilla.javascript.Scriptable;
 import org.mozilla.javascript.ScriptableObject;
@@ -31,7 +32,9 @@ import com.jsen.javascript.JavaScriptEngine;
 
 /**
  * Class that represents the sealed global scope, which provides global properties 
- * and implements the native Java global object.
+ * and implements the native Java global object. Standard objects might be either
+ * initialized into every global scope, or shared from one sealed scope per JVM,
+ * which is then used as a prototype and global scope holds only the global object layer.
  * 
  * @author Radim Loskot
  * @version 0.9
@@ -40,9 +43,17 @@ import com.jsen.javascript.JavaScriptEngine;
 public class ObjectTopLevel extends TopLevel {	
 	private static final long serialVersionUID = -824471943182669084L;
 
+	/*
+	 * Holder of the shared standard objects, they are initialized with the first access.
+	 */
+	private static class SharedStandardObjectsHolder {
+		private static final ScriptableObject SCOPE = createSharedStandardObjects();
+	}
+	
 	protected Object globalObject;
 	protected JavaScriptEngine<?> scriptEngine;
 	protected ObjectImplementor implementor;
+	protected Scriptable sharedScope;
 	
 	/**
 	 * Constructs the global scope with the implemented global object.
@@ -52,14 +63,36 @@ public class ObjectTopLevel extends TopLevel {
 	 * @param implementor Implementor that ensures the implementing of the global object into this scope.
 	 */
 	public ObjectTopLevel(Object globalObject, JavaScriptEngine<?> scriptEngine, ObjectImplementor implementor) {
+		this(globalObject, scriptEngine, implementor, false);
+	}
+	
+	/**
+	 * Constructs the global scope with the implemented global object.
+	 * 
+	 * @param globalObject Global object to be implemented into this global scope.
+	 * @param scriptEngine Script engine which owns this global scope.
+	 * @param implementor Implementor that ensures the implementing of the global object into this scope.
+	 * @param sharedStandardObjects If true, then the sealed standard objects shared by all global scopes are used as prototype
+	 *        of this scope, otherwise new standard objects are initialized into this scope.
+	 */
+	public ObjectTopLevel(Object globalObject, JavaScriptEngine<?> scriptEngine, ObjectImplementor implementor, boolean sharedStandardObjects) {
 		this.globalObject = globalObject;
 		this.scriptEngine = scriptEngine;
 		this.implementor = implementor;
 		
+		if (sharedStandardObjects) {
+			this.sharedScope = getSharedStandardObjects();
+			setPrototype(sharedScope);
+			setParentScope(null);
+			cacheBuiltins();
+		}
+		
 		Context cx = scriptEngine.enterContext();
 		try {
-			cx.initStandardObjects(this, false); // FIXME?: should be sealed some objects? e.g. Object and function.
-			deleteRhinoUnsafeProperties();
+			if (sharedScope == null) {
+				cx.initStandardObjects(this, false); // FIXME?: should be sealed some objects? e.g. Object and function.
+				deleteRhinoUnsafeProperties(this);
+			}
 			
 			implementGlobalObject();
 			defineBuiltinFunctions();
@@ -113,6 +146,11 @@ public class ObjectTopLevel extends TopLevel {
 	@Override
 	public Object get(String name, Scriptable start) {
 		Object object = super.get(name, start);
+		
+		if (object == Scriptable.NOT_FOUND && sharedScope != null && sharedScope.has(name, sharedScope)) {
+			return Scriptable.NOT_FOUND; // Standard objects have precedence before the object getter
+		}
+		
 		object = (object == Scriptable.NOT_FOUND)? objectGetterGet(name) : object;
 		
 		if (object != Scriptable.NOT_FOUND) {
@@ -187,21 +225,51 @@ public class ObjectTopLevel extends TopLevel {
 		return Context.getUndefinedValue();
 	}
 
+	/**
+	 * Returns sealed standard objects which are shared by all global scopes that were
+	 * constructed in the shared mode. Scripts cannot modify these objects.
+	 * 
+	 * @return Shared scope with the sealed standard objects.
+	 */
+	public static ScriptableObject getSharedStandardObjects() {
+		return SharedStandardObjectsHolder.SCOPE;
+	}
+	
+	private static ScriptableObject createSharedStandardObjects() {
+		/* Features have to match the engine contexts, so E4X objects are not defined */
+		ContextFactory contextFactory = new ContextFactory() {
+			@Override
+			protected boolean hasFeature(Context cx, int featureIndex) {
+				return (featureIndex == Context.FEATURE_E4X)? false : super.hasFeature(cx, featureIndex);
+			}
+		};
+		
+		Context cx = contextFactory.enterContext();
+		try {
+			ScriptableObject scope = cx.initStandardObjects(null, true);
+			deleteRhinoUnsafeProperties(scope);
+			scope.sealObject();
+			
+			return scope;
+		} finally {
+			Context.exit();
+		}
+	}
 	
-    private void deleteRhinoUnsafeProperties() {
-        delete("JavaAdapter");
-        delete("org");
-        delete("java");
-        delete("JavaImporter");
-        delete("Script");
-        delete("edu");
-        delete("uneval");
-        delete("javax");
-        delete("getClass");
-        delete("com");
-        delete("net");
-        delete("Packages");
-        delete("importClass");
-        delete("importPackage");
+    private static void deleteRhinoUnsafeProperties(Scriptable scope) {
+        scope.delete("JavaAdapter");
+        scope.delete("org");
+        scope.delete("java");
+        scope.delete("JavaImporter");
+        scope.delete("Script");
+        scope.delete("edu");
+        scope.delete("uneval");
+        scope.delete("javax");
+        scope.delete("getClass");
+        scope.delete("com");
+        scope.delete("net");
+        scope.delete("Packages");
+        scope.delete("importClass");
+        scope.delete("importPackage");
     }
 }
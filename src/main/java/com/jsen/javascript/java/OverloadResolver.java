@@ -0,0 +1,146 @@
+/**
+ * OverloadResolver.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript.java;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mozilla.javascript.Wrapper;
+
+import com.jsen.core.reflect.InvocableMember;
+
+/**
+ * Resolves the nearest overloaded member for the passed call arguments and remembers
+ * the resolution for the runtime classes of the arguments, so repeated calls with
+ * the same argument shapes skip the matching of all overloads.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class OverloadResolver<T extends InvocableMember<?>> {
+	/**
+	 * Maximal number of the remembered argument signatures, calls with other signatures are resolved every time.
+	 */
+	public static final int MAX_CACHED_SIGNATURES = 32;
+
+	/*
+	 * Marker for the null arguments inside the signatures.
+	 */
+	private static final class NullArgument {}
+
+	/*
+	 * Runtime classes of the call arguments. Wrapped arguments are described also
+	 * by the class of the unwrapped object, because it takes part in the matching.
+	 */
+	private static final class ArgumentsSignature {
+		private final Class<?>[] types;
+		private final int hash;
+
+		public ArgumentsSignature(Object[] args) {
+			types = new Class<?>[args.length * 2];
+
+			for (int i = 0; i < args.length; i++) {
+				Object arg = args[i];
+				if (arg == null) {
+					types[2 * i] = NullArgument.class;
+				} else {
+					types[2 * i] = arg.getClass();
+					if (arg instanceof Wrapper) {
+						Object unwrapped = ((Wrapper)arg).unwrap();
+						types[2 * i + 1] = (unwrapped != null)? unwrapped.getClass() : NullArgument.class;
+					}
+				}
+			}
+
+			hash = Arrays.hashCode(types);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			} else if (obj instanceof ArgumentsSignature) {
+				ArgumentsSignature signature = (ArgumentsSignature)obj;
+				return hash == signature.hash && Arrays.equals(types, signature.types);
+			}
+
+			return false;
+		}
+	}
+
+	/*
+	 * Remembered resolution of the signature that does not match any member.
+	 */
+	private static final ResolvedInvocation NO_MATCH = new ResolvedInvocation();
+
+	protected Set<T> members;
+	private final ConcurrentMap<ArgumentsSignature, ResolvedInvocation> resolvedInvocations;
+
+	/**
+	 * Constructs resolver for the passed overloaded members.
+	 *
+	 * @param members Overloaded members, resolver expects that they will not be modified.
+	 */
+	public OverloadResolver(Set<T> members) {
+		this.members = Collections.unmodifiableSet(members);
+		this.resolvedInvocations = new ConcurrentHashMap<ArgumentsSignature, ResolvedInvocation>();
+	}
+
+	/**
+	 * Returns all overloaded members.
+	 *
+	 * @return Unmodifiable set of the overloaded members.
+	 */
+	public Set<T> getMembers() {
+		return members;
+	}
+
+	/**
+	 * Returns the nearest member for the passed arguments together with the plan how to cast the arguments.
+	 *
+	 * @param args Arguments that are passed in the call.
+	 * @return Resolved invocation if there was any member that matched the passed arguments, otherwise null.
+	 * @see HostedJavaMethod#getNearestObjectFunction(Object[], Set)
+	 */
+	public ResolvedInvocation resolve(Object[] args) {
+		ArgumentsSignature signature = new ArgumentsSignature(args);
+		ResolvedInvocation invocation = resolvedInvocations.get(signature);
+
+		if (invocation == null) {
+			InvocableMember<?> member = HostedJavaMethod.getNearestObjectFunction(args, members);
+			invocation = (member != null)? new ResolvedInvocation(member, args) : NO_MATCH;
+
+			if (resolvedInvocations.size() < MAX_CACHED_SIGNATURES) {
+				resolvedInvocations.putIfAbsent(signature, invocation);
+			}
+		}
+
+		return (invocation != NO_MATCH)? invocation : null;
+	}
+}
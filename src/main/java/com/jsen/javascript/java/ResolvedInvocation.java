@@ -0,0 +1,145 @@
+/**
+ * ResolvedInvocation.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package com.jsen.javascript.java;
+
+import org.mozilla.javascript.ConsString;
+import org.mozilla.javascript.Undefined;
+
+import com.jsen.core.reflect.InvocableMember;
+import com.jsen.javascript.JavaScriptEngine;
+
+/**
+ * Member resolved for some argument signature together with the precomputed plan
+ * how to cast the call arguments of this signature into the member parameters.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see HostedJavaMethod#castArgs(Class[], Object...)
+ */
+public class ResolvedInvocation {
+	private static final int CAST_NULL = 0;
+	private static final int CAST_STRING = 1;
+	private static final int CAST_INTEGER = 2;
+	private static final int CAST_JAVA = 3;
+
+	private InvocableMember<?> member;
+	private Class<?>[] expectedTypes;
+	private int[] casts;
+	private boolean varargs;
+
+	/*
+	 * Constructs invocation that does not resolve any member.
+	 */
+	ResolvedInvocation() {
+	}
+
+	/**
+	 * Constructs resolved invocation of the passed member.
+	 *
+	 * @param member Resolved member.
+	 * @param args Arguments of the call for which was member resolved, they serve as a sample of the signature.
+	 */
+	public ResolvedInvocation(InvocableMember<?> member, Object[] args) {
+		this.member = member;
+		this.expectedTypes = member.getParameterTypes();
+		this.varargs = HostedJavaMethod.isVarargsCall(expectedTypes, args);
+		this.casts = new int[expectedTypes.length];
+
+		for (int i = 0; i < expectedTypes.length; i++) {
+			Object arg = (varargs && i == expectedTypes.length - 1)? new Object[0] : args[i];
+			casts[i] = getCast(expectedTypes[i], arg);
+		}
+	}
+
+	/**
+	 * Returns resolved member.
+	 *
+	 * @return Resolved member.
+	 */
+	public InvocableMember<?> getMember() {
+		return member;
+	}
+
+	/**
+	 * Returns parameter types of the resolved member.
+	 *
+	 * @return Parameter types of the resolved member.
+	 */
+	public Class<?>[] getParameterTypes() {
+		return expectedTypes;
+	}
+
+	/**
+	 * Casts the passed arguments into parameters of the resolved member. Arguments must
+	 * have the same signature as arguments for which was this invocation resolved.
+	 *
+	 * @param args Arguments to be casted.
+	 * @return Array of the casted arguments.
+	 */
+	public Object[] castArgs(Object[] args) {
+		int length = expectedTypes.length;
+		Object[] castedArgs = new Object[length];
+
+		if (varargs) {
+			int varargsStart = length - 1;
+			Object[] varargsArray = new Object[args.length - varargsStart];
+			System.arraycopy(args, varargsStart, varargsArray, 0, varargsArray.length);
+			System.arraycopy(args, 0, castedArgs, 0, varargsStart);
+			castedArgs[varargsStart] = varargsArray;
+		} else {
+			System.arraycopy(args, 0, castedArgs, 0, length);
+		}
+
+		for (int i = 0; i < length; i++) {
+			Object arg = castedArgs[i];
+
+			switch (casts[i]) {
+				case CAST_NULL:
+					arg = null;
+					break;
+				case CAST_STRING:
+					arg = arg.toString();
+					break;
+				case CAST_INTEGER:
+					arg = ((Double)arg).intValue();
+					break;
+				default:
+					arg = JavaScriptEngine.jsToJava(arg);
+			}
+
+			castedArgs[i] = HostedJavaObject.wrap(expectedTypes[i], arg);
+		}
+
+		return castedArgs;
+	}
+
+	private static int getCast(Class<?> expectedType, Object arg) {
+		if (arg == null || arg == Undefined.instance) {
+			return CAST_NULL;
+		} else if (arg instanceof ConsString) {
+			return CAST_STRING;
+		} else if (arg instanceof Double && (expectedType.equals(Integer.class) || expectedType.equals(int.class) || expectedType.equals(Long.class) || expectedType.equals(long.class))) {
+			return CAST_INTEGER;
+		} else {
+			return CAST_JAVA;
+		}
+	}
+}
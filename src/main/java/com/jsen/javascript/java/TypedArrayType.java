@@ -0,0 +1,281 @@
+/**
+ * TypedArrayType.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.java;
+
+import java.math.BigDecimal;
+
+import org.mozilla.javascript.ScriptRuntime;
+
+/**
+ * Types of the Java primitive arrays which are accessible from the scripts as the typed arrays.
+ * Every type reads and writes the items directly, values which are written are converted
+ * in the same way as by the typed arrays, e.g. they wrap around instead of overflowing.
+ * Long and boolean arrays have no typed array counterpart, so they are visible as the arrays.
+ * Items of the long arrays are wrapped modulo 2^64 when written, but they are read as the numbers,
+ * so the values above 2^53 lose precision.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public enum TypedArrayType {
+	INT8(byte.class, "Int8Array", 1) {
+		@Override
+		public Object get(Object array, int index) {
+			return Integer.valueOf(((byte[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((byte[])array)[index] = (byte)ScriptRuntime.toInt32(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((byte[])array).length;
+		}
+	},
+	
+	INT16(short.class, "Int16Array", 2) {
+		@Override
+		public Object get(Object array, int index) {
+			return Integer.valueOf(((short[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((short[])array)[index] = (short)ScriptRuntime.toInt32(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((short[])array).length;
+		}
+	},
+	
+	UINT16(char.class, "Uint16Array", 2) {
+		@Override
+		public Object get(Object array, int index) {
+			return Integer.valueOf(((char[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((char[])array)[index] = ScriptRuntime.toUint16(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((char[])array).length;
+		}
+	},
+	
+	INT32(int.class, "Int32Array", 4) {
+		@Override
+		public Object get(Object array, int index) {
+			return Integer.valueOf(((int[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((int[])array)[index] = ScriptRuntime.toInt32(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((int[])array).length;
+		}
+	},
+	
+	INT64(long.class, "Array", 8) {
+		@Override
+		public Object get(Object array, int index) {
+			return Long.valueOf(((long[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((long[])array)[index] = toInt64(ScriptRuntime.toNumber(value));
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((long[])array).length;
+		}
+	},
+	
+	FLOAT32(float.class, "Float32Array", 4) {
+		@Override
+		public Object get(Object array, int index) {
+			return Double.valueOf(((float[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((float[])array)[index] = (float)ScriptRuntime.toNumber(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((float[])array).length;
+		}
+	},
+	
+	FLOAT64(double.class, "Float64Array", 8) {
+		@Override
+		public Object get(Object array, int index) {
+			return Double.valueOf(((double[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((double[])array)[index] = ScriptRuntime.toNumber(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((double[])array).length;
+		}
+	},
+	
+	BOOLEAN(boolean.class, "Array", 1) {
+		@Override
+		public Object get(Object array, int index) {
+			return Boolean.valueOf(((boolean[])array)[index]);
+		}
+		
+		@Override
+		public void set(Object array, int index, Object value) {
+			((boolean[])array)[index] = ScriptRuntime.toBoolean(value);
+		}
+		
+		@Override
+		public int getLength(Object array) {
+			return ((boolean[])array).length;
+		}
+	};
+	
+	private static final double TWO_TO_63 = 9223372036854775808.0;
+	
+	private final Class<?> componentType;
+	private final String className;
+	private final int bytesPerElement;
+	
+	private TypedArrayType(Class<?> componentType, String className, int bytesPerElement) {
+		this.componentType = componentType;
+		this.className = className;
+		this.bytesPerElement = bytesPerElement;
+	}
+	
+	/**
+	 * Returns item of the array.
+	 * 
+	 * @param array Array of this type.
+	 * @param index Index of the item, it must be in range of the array.
+	 * @return Item converted into script value.
+	 */
+	public abstract Object get(Object array, int index);
+	
+	/**
+	 * Converts the script value and sets it into array.
+	 * 
+	 * @param array Array of this type.
+	 * @param index Index of the item, it must be in range of the array.
+	 * @param value Script value to be set.
+	 */
+	public abstract void set(Object array, int index, Object value);
+	
+	/**
+	 * Returns length of the array.
+	 * 
+	 * @param array Array of this type.
+	 * @return Length of the array.
+	 */
+	public abstract int getLength(Object array);
+	
+	/**
+	 * Returns component type of the arrays of this type.
+	 * 
+	 * @return Primitive component type.
+	 */
+	public Class<?> getComponentType() {
+		return componentType;
+	}
+	
+	/**
+	 * Returns class name of the typed array, under which the arrays are visible from the scripts.
+	 * 
+	 * @return Class name of the typed array.
+	 */
+	public String getClassName() {
+		return className;
+	}
+	
+	/**
+	 * Returns size of one item in bytes.
+	 * 
+	 * @return Size of one item in bytes.
+	 */
+	public int getBytesPerElement() {
+		return bytesPerElement;
+	}
+	
+	/**
+	 * Returns type of the passed array.
+	 * 
+	 * @param array Array of which type should be returned.
+	 * @return Type of the array or null if it is not primitive array.
+	 */
+	public static TypedArrayType forArray(Object array) {
+		Class<?> componentType = (array != null)? array.getClass().getComponentType() : null;
+		
+		if (componentType == null || !componentType.isPrimitive()) {
+			return null;
+		}
+		
+		for (TypedArrayType type : values()) {
+			if (type.componentType == componentType) {
+				return type;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Converts number into 64-bit integer in the same way as the typed arrays convert
+	 * the numbers into shorter integers, i.e. the truncated number is wrapped modulo 2^64
+	 * and NaN and infinities are converted into zero.
+	 * 
+	 * @param number Number to be converted.
+	 * @return Converted 64-bit integer.
+	 */
+	public static long toInt64(double number) {
+		if (Double.isNaN(number) || Double.isInfinite(number)) {
+			return 0;
+		} else if (number > -TWO_TO_63 && number < TWO_TO_63) {
+			return (long)number;
+		}
+		
+		/* Number is integral here, the lowest 64 bits of its two's complement are the wrapped value */
+		return new BigDecimal(number).toBigInteger().longValue();
+	}
+}
@@ -0,0 +1,90 @@
+/**
+ * EngineMetrics.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.metrics;
+
+/**
+ * Holds the metrics which receive the measurements of all engines, together with
+ * the name of the script which is currently running on the particular thread.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class EngineMetrics {
+	private static volatile ScriptMetrics metrics = new NoopScriptMetrics();
+	private static final ThreadLocal<String> currentScriptName = new ThreadLocal<String>();
+
+	private EngineMetrics() {}
+
+	/**
+	 * Returns metrics which receive the measurements.
+	 *
+	 * @return Current metrics.
+	 */
+	public static ScriptMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets metrics which receive the measurements.
+	 *
+	 * @param metrics New metrics, if null then the measuring is disabled.
+	 */
+	public static void setMetrics(ScriptMetrics metrics) {
+		EngineMetrics.metrics = (metrics != null)? metrics : new NoopScriptMetrics();
+	}
+
+	/**
+	 * Marks the passed script as running on the current thread. It should be called
+	 * only if the metrics are enabled.
+	 *
+	 * @param scriptName Name of the script which starts running.
+	 * @return Name of the script which was running before, it should be passed to {@link #exitScript(String)}.
+	 */
+	public static String enterScript(String scriptName) {
+		String previousScriptName = currentScriptName.get();
+		currentScriptName.set(scriptName);
+
+		return previousScriptName;
+	}
+
+	/**
+	 * Restores the script which was running before the last entered script.
+	 *
+	 * @param previousScriptName Name returned by the matching {@link #enterScript(String)}.
+	 */
+	public static void exitScript(String previousScriptName) {
+		if (previousScriptName == null) {
+			currentScriptName.remove();
+		} else {
+			currentScriptName.set(previousScriptName);
+		}
+	}
+
+	/**
+	 * Returns name of the script which is running on the current thread.
+	 *
+	 * @return Name of the running script or null if it is not known.
+	 */
+	public static String getCurrentScriptName() {
+		return currentScriptName.get();
+	}
+}
@@ -0,0 +1,101 @@
+/**
+ * ScriptMetrics.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.metrics;
+
+/**
+ * Receiver of the measurements of the engine operations. Implementations must be
+ * thread safe. If the metrics are not enabled, then the engine does not measure
+ * anything and it does not call any other method.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see EngineMetrics#setMetrics(ScriptMetrics)
+ */
+public interface ScriptMetrics {
+
+	/**
+	 * Measured operations of the engine.
+	 */
+	public enum Operation {
+		/**
+		 * Evaluation of the script source, including its compiling.
+		 */
+		EVAL,
+
+		/**
+		 * Compiling of the script source.
+		 */
+		COMPILE,
+
+		/**
+		 * Call of the script function from Java. It is recorded with the name of the called
+		 * function instead of the script name, because the function can be defined by any
+		 * script. Calls through the Java interface use the name of the interface method
+		 * for the anonymous functions.
+		 */
+		INVOKE,
+
+		/**
+		 * Evaluation of the already compiled script.
+		 */
+		COMPILED_EVAL,
+
+		/**
+		 * Call of the hosted Java method from the script.
+		 */
+		HOST_CALL,
+
+		/**
+		 * Read of the hosted Java field from the script.
+		 */
+		HOST_GET,
+
+		/**
+		 * Write of the hosted Java field from the script.
+		 */
+		HOST_PUT
+	}
+
+	/**
+	 * Tests whether the metrics are enabled.
+	 *
+	 * @return True if the engine should measure the operations, otherwise false.
+	 */
+	public boolean isEnabled();
+
+	/**
+	 * Records one finished operation.
+	 *
+	 * @param operation Finished operation.
+	 * @param scriptName Name of the script which performed the operation, or name of the invoked function for {@link Operation#INVOKE}.
+	 * @param duration Duration of the operation in nanoseconds.
+	 * @param failed True if the operation ended with the exception.
+	 */
+	public void record(Operation operation, String scriptName, long duration, boolean failed);
+
+	/**
+	 * Records allocation of the wrapper of the Java object or class.
+	 *
+	 * @param wrapperType Class of the allocated wrapper.
+	 */
+	public void recordWrapper(Class<?> wrapperType);
+}
@@ -0,0 +1,305 @@
+/**
+ * SimpleScriptMetrics.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.metrics;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Metrics which keep the statistics in memory. Every operation and script name has
+ * its own timer with the call count, the error count and the latency histogram with
+ * the power of two buckets. Timers are looked up by the operation and then by the script
+ * name, so the recording does not allocate anything, except the first recording of
+ * the particular operation and script name, which creates its timer.
+ *
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class SimpleScriptMetrics implements ScriptMetrics {
+	private static final int BUCKETS_COUNT = 64;
+	private static final String UNKNOWN_SCRIPT_NAME = "<unknown>";
+
+	/**
+	 * Snapshot of the statistics of one operation and script name.
+	 */
+	public static class Statistics {
+		private final Operation operation;
+		private final String scriptName;
+		private final long count;
+		private final long errorCount;
+		private final long totalTime;
+		private final long maxTime;
+		private final long[] buckets;
+
+		private Statistics(Operation operation, String scriptName, Timer timer) {
+			this.operation = operation;
+			this.scriptName = scriptName;
+			this.count = timer.count.get();
+			this.errorCount = timer.errorCount.get();
+			this.totalTime = timer.totalTime.get();
+			this.maxTime = timer.maxTime.get();
+			this.buckets = new long[BUCKETS_COUNT];
+
+			for (int i = 0; i < BUCKETS_COUNT; i++) {
+				buckets[i] = timer.buckets.get(i);
+			}
+		}
+
+		/**
+		 * Returns measured operation.
+		 *
+		 * @return Measured operation.
+		 */
+		public Operation getOperation() {
+			return operation;
+		}
+
+		/**
+		 * Returns name of the script which performed the operation.
+		 *
+		 * @return Name of the script.
+		 */
+		public String getScriptName() {
+			return scriptName;
+		}
+
+		/**
+		 * Returns number of the operations.
+		 *
+		 * @return Number of the operations.
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns number of the operations which ended with the exception.
+		 *
+		 * @return Number of the failed operations.
+		 */
+		public long getErrorCount() {
+			return errorCount;
+		}
+
+		/**
+		 * Returns total duration of all operations.
+		 *
+		 * @return Total duration in nanoseconds.
+		 */
+		public long getTotalTime() {
+			return totalTime;
+		}
+
+		/**
+		 * Returns the longest duration of the operation.
+		 *
+		 * @return Maximal duration in nanoseconds.
+		 */
+		public long getMaxTime() {
+			return maxTime;
+		}
+
+		/**
+		 * Returns mean duration of the operation.
+		 *
+		 * @return Mean duration in nanoseconds.
+		 */
+		public double getMeanTime() {
+			return (count > 0)? (double)totalTime / count : 0;
+		}
+
+		/**
+		 * Returns upper bound of the duration of the passed fraction of the operations.
+		 * Result is rounded up to the power of two, because of the histogram buckets.
+		 *
+		 * @param percentile Fraction of the operations in range 0 to 1.
+		 * @return Upper bound of the duration in nanoseconds.
+		 */
+		public long getPercentile(double percentile) {
+			long threshold = (long)Math.ceil(count * percentile);
+			long seen = 0;
+
+			for (int i = 0; i < BUCKETS_COUNT; i++) {
+				seen += buckets[i];
+
+				if (seen >= threshold && seen > 0) {
+					return Math.min((i == 0)? 0 : (1L << i) - 1, maxTime);
+				}
+			}
+
+			return maxTime;
+		}
+
+		/**
+		 * Returns counts of the histogram buckets. Bucket with index i counts durations in range
+		 * from 2^(i-1) to 2^i - 1 nanoseconds.
+		 *
+		 * @return Counts of the histogram buckets.
+		 */
+		public long[] getBuckets() {
+			return buckets.clone();
+		}
+
+		@Override
+		public String toString() {
+			return operation + " " + scriptName + ": count=" + count + ", errors=" + errorCount + ", mean=" + (long)getMeanTime() + "ns, max=" + maxTime + "ns";
+		}
+	}
+
+	/*
+	 * Counters of one operation and script name.
+	 */
+	private static class Timer {
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong errorCount = new AtomicLong();
+		private final AtomicLong totalTime = new AtomicLong();
+		private final AtomicLong maxTime = new AtomicLong();
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_COUNT);
+
+		public void record(long duration, boolean failed) {
+			duration = Math.max(duration, 0);
+
+			count.incrementAndGet();
+			totalTime.addAndGet(duration);
+			buckets.incrementAndGet(Math.min(BUCKETS_COUNT - Long.numberOfLeadingZeros(duration), BUCKETS_COUNT - 1));
+
+			if (failed) {
+				errorCount.incrementAndGet();
+			}
+
+			long max;
+			while ((max = maxTime.get()) < duration && !maxTime.compareAndSet(max, duration)) {
+			}
+		}
+	}
+
+	private final Map<Operation, ConcurrentMap<String, Timer>> timers;
+	private final ConcurrentMap<Class<?>, AtomicLong> wrapperCounts;
+
+	/**
+	 * Constructs new empty metrics.
+	 */
+	public SimpleScriptMetrics() {
+		/* Map of the operations is filled only here, so it is only read concurrently */
+		this.timers = new EnumMap<Operation, ConcurrentMap<String, Timer>>(Operation.class);
+		for (Operation operation : Operation.values()) {
+			timers.put(operation, new ConcurrentHashMap<String, Timer>());
+		}
+
+		this.wrapperCounts = new ConcurrentHashMap<Class<?>, AtomicLong>();
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public void record(Operation operation, String scriptName, long duration, boolean failed) {
+		ConcurrentMap<String, Timer> operationTimers = timers.get(operation);
+		scriptName = (scriptName != null)? scriptName : UNKNOWN_SCRIPT_NAME;
+		Timer timer = operationTimers.get(scriptName);
+
+		if (timer == null) {
+			Timer newTimer = new Timer();
+			timer = operationTimers.putIfAbsent(scriptName, newTimer);
+			timer = (timer != null)? timer : newTimer;
+		}
+
+		timer.record(duration, failed);
+	}
+
+	@Override
+	public void recordWrapper(Class<?> wrapperType) {
+		AtomicLong counter = wrapperCounts.get(wrapperType);
+
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = wrapperCounts.putIfAbsent(wrapperType, newCounter);
+			counter = (counter != null)? counter : newCounter;
+		}
+
+		counter.incrementAndGet();
+	}
+
+	/**
+	 * Returns snapshot of the statistics of all recorded operations.
+	 *
+	 * @return Statistics of all operations and script names.
+	 */
+	public List<Statistics> getStatistics() {
+		List<Statistics> statistics = new ArrayList<Statistics>();
+
+		for (Map.Entry<Operation, ConcurrentMap<String, Timer>> operationEntry : timers.entrySet()) {
+			for (Map.Entry<String, Timer> entry : operationEntry.getValue().entrySet()) {
+				statistics.add(new Statistics(operationEntry.getKey(), entry.getKey(), entry.getValue()));
+			}
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * Returns snapshot of the statistics of the passed operation and script name.
+	 *
+	 * @param operation Measured operation.
+	 * @param scriptName Name of the script.
+	 * @return Statistics of the operation or null if it was not recorded yet.
+	 */
+	public Statistics getStatistics(Operation operation, String scriptName) {
+		Timer timer = timers.get(operation).get((scriptName != null)? scriptName : UNKNOWN_SCRIPT_NAME);
+		return (timer != null)? new Statistics(operation, scriptName, timer) : null;
+	}
+
+	/**
+	 * Returns numbers of the allocated wrappers.
+	 *
+	 * @return Map of the wrapper classes and their allocation counts.
+	 */
+	public Map<Class<?>, Long> getWrapperCounts() {
+		Map<Class<?>, Long> counts = new HashMap<Class<?>, Long>();
+
+		for (Map.Entry<Class<?>, AtomicLong> entry : wrapperCounts.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().get());
+		}
+
+		return counts;
+	}
+
+	/**
+	 * Removes all recorded statistics.
+	 */
+	public void clear() {
+		for (ConcurrentMap<String, Timer> operationTimers : timers.values()) {
+			operationTimers.clear();
+		}
+
+		wrapperCounts.clear();
+	}
+}
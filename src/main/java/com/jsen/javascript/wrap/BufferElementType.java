@@ -0,0 +1,209 @@
+/**
+ * BufferElementType.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+
+import org.mozilla.javascript.ScriptRuntime;
+
+/**
+ * Element types of the typed arrays and of the data view accessors over the byte buffers.
+ * Every type reads and writes the buffer directly at the absolute byte index, so the position
+ * of the buffer is never changed. Written values are converted in the same way as by the typed arrays.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public enum BufferElementType {
+	INT8("Int8", 1) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.get(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.put(byteIndex, (byte)ScriptRuntime.toInt32(value));
+		}
+	},
+	
+	UINT8("Uint8", 1) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.get(byteIndex) & 0xFF);
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.put(byteIndex, (byte)ScriptRuntime.toInt32(value));
+		}
+	},
+	
+	UINT8_CLAMPED("Uint8Clamped", 1) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.get(byteIndex) & 0xFF);
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			double number = ScriptRuntime.toNumber(value);
+			int clamped;
+			
+			if (number > 255) {
+				clamped = 255;
+			} else if (number > 0) {
+				clamped = (int)Math.rint(number);
+			} else {
+				clamped = 0; // also NaN
+			}
+			
+			buffer.put(byteIndex, (byte)clamped);
+		}
+	},
+	
+	INT16("Int16", 2) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.getShort(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putShort(byteIndex, (short)ScriptRuntime.toInt32(value));
+		}
+	},
+	
+	UINT16("Uint16", 2) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.getChar(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putChar(byteIndex, ScriptRuntime.toUint16(value));
+		}
+	},
+	
+	INT32("Int32", 4) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Integer.valueOf(buffer.getInt(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putInt(byteIndex, ScriptRuntime.toInt32(value));
+		}
+	},
+	
+	UINT32("Uint32", 4) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			int value = buffer.getInt(byteIndex);
+			return (value >= 0)? Integer.valueOf(value) : (Object)Double.valueOf(value & 0xFFFFFFFFL);
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putInt(byteIndex, ScriptRuntime.toInt32(value));
+		}
+	},
+	
+	FLOAT32("Float32", 4) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Double.valueOf(buffer.getFloat(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putFloat(byteIndex, (float)ScriptRuntime.toNumber(value));
+		}
+	},
+	
+	FLOAT64("Float64", 8) {
+		@Override
+		public Object get(ByteBuffer buffer, int byteIndex) {
+			return Double.valueOf(buffer.getDouble(byteIndex));
+		}
+		
+		@Override
+		public void set(ByteBuffer buffer, int byteIndex, Object value) {
+			buffer.putDouble(byteIndex, ScriptRuntime.toNumber(value));
+		}
+	};
+	
+	private final String name;
+	private final int bytesPerElement;
+	
+	private BufferElementType(String name, int bytesPerElement) {
+		this.name = name;
+		this.bytesPerElement = bytesPerElement;
+	}
+	
+	/**
+	 * Reads the element from the buffer.
+	 * 
+	 * @param buffer Buffer from which should be read the element, its byte order is used.
+	 * @param byteIndex Absolute index of the first byte of the element.
+	 * @return Element converted into script value.
+	 */
+	public abstract Object get(ByteBuffer buffer, int byteIndex);
+	
+	/**
+	 * Converts the script value and writes it into buffer.
+	 * 
+	 * @param buffer Buffer into which should be written the element, its byte order is used.
+	 * @param byteIndex Absolute index of the first byte of the element.
+	 * @param value Script value to be written.
+	 */
+	public abstract void set(ByteBuffer buffer, int byteIndex, Object value);
+	
+	/**
+	 * Returns name of the type, as it is used in the names of the typed arrays and data view accessors.
+	 * 
+	 * @return Name of the type, e.g. Float64.
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns class name of the typed array of this type.
+	 * 
+	 * @return Class name of the typed array, e.g. Float64Array.
+	 */
+	public String getArrayClassName() {
+		return name + "Array";
+	}
+	
+	/**
+	 * Returns size of one element in bytes.
+	 * 
+	 * @return Size of one element in bytes.
+	 */
+	public int getBytesPerElement() {
+		return bytesPerElement;
+	}
+}
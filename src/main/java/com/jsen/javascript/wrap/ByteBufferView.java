@@ -0,0 +1,90 @@
+/**
+ * ByteBufferView.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Describes view of the byte buffer which should be presented to the scripts. If it has
+ * element type, then it is wrapped into typed array of this type, otherwise it is wrapped into data view.
+ * Bare byte buffers are wrapped into array buffers. View covers the bytes of the buffer between
+ * its position and limit at the time of wrapping.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see ByteBufferWrapFactoryDecorator
+ */
+public class ByteBufferView {
+	protected ByteBuffer buffer;
+	protected BufferElementType elementType;
+	
+	/**
+	 * Constructs the data view of the buffer.
+	 * 
+	 * @param buffer Buffer to be viewed.
+	 */
+	public ByteBufferView(ByteBuffer buffer) {
+		this(buffer, null);
+	}
+	
+	/**
+	 * Constructs the view of the buffer.
+	 * 
+	 * @param buffer Buffer to be viewed.
+	 * @param elementType Element type of the typed array or null for data view.
+	 */
+	public ByteBufferView(ByteBuffer buffer, BufferElementType elementType) {
+		if (buffer == null) {
+			throw new IllegalArgumentException("Buffer must not be null");
+		}
+		
+		this.buffer = buffer;
+		this.elementType = elementType;
+	}
+	
+	/**
+	 * Returns viewed buffer.
+	 * 
+	 * @return Viewed buffer.
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Returns element type of the typed array.
+	 * 
+	 * @return Element type of the typed array or null if this is data view.
+	 */
+	public BufferElementType getElementType() {
+		return elementType;
+	}
+	
+	/**
+	 * Tests whether this is the data view.
+	 * 
+	 * @return True if this view should be wrapped into data view, otherwise false.
+	 */
+	public boolean isDataView() {
+		return elementType == null;
+	}
+}
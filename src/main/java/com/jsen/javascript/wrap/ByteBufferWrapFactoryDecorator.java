@@ -0,0 +1,76 @@
+/**
+ * ByteBufferWrapFactoryDecorator.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+/**
+ * Wrap factory decorator that presents the byte buffers to the scripts without copying them.
+ * Byte buffers are wrapped into array buffers and the byte buffer views are wrapped into data views
+ * or typed arrays over the array buffer of the viewed buffer. Works with heap, direct and mapped buffers.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ * @see ByteBufferView
+ */
+public class ByteBufferWrapFactoryDecorator extends WrapFactoryDecorator {
+	
+	/**
+	 * Constructs leaf byte buffer wrap factory decorator.
+	 */
+	public ByteBufferWrapFactoryDecorator() {
+	}
+	
+	/**
+	 * Constructs new wrap factory decorator.
+	 * 
+	 * @param decorator Decorator the be added as a child decorator and chained.
+	 */
+	public ByteBufferWrapFactoryDecorator(WrapFactoryDecorator decorator) {
+		super(decorator);
+	}
+	
+	@Override
+	public Scriptable wrapAsJavaObject(Context cx, Scriptable scope, Object javaObject, Class<?> staticType) {
+		if (javaObject instanceof ByteBuffer) {
+			return new HostedArrayBuffer(scope, (ByteBuffer)javaObject);
+		} else if (javaObject instanceof ByteBufferView) {
+			ByteBufferView view = (ByteBufferView)javaObject;
+			HostedArrayBuffer arrayBuffer = new HostedArrayBuffer(scope, view.getBuffer());
+			
+			if (view.isDataView()) {
+				HostedDataView dataView = new HostedDataView(scope, arrayBuffer);
+				dataView.setJavaObject(view);
+				return dataView;
+			} else {
+				HostedBufferArray array = new HostedBufferArray(scope, arrayBuffer, view.getElementType());
+				array.setJavaObject(view);
+				return array;
+			}
+		}
+		
+		return super.wrapAsJavaObject(cx, scope, javaObject, staticType);
+	}
+}
@@ -23,9 +23,14 @@ import java.util.List;
 import java.util.Map;
 
 import com.jsen.javascript.java.ArrayWrapper;
+import com.jsen.javascript.java.HostedClassMembers;
+import com.jsen.javascript.java.HostedClassMembersCache;
+import com.jsen.javascript.java.HostedJavaArray;
 import com.jsen.javascript.java.HostedJavaCollection;
+import com.jsen.javascript.java.HostedJavaList;
+import com.jsen.javascript.java.HostedJavaMap;
+import com.jsen.javascript.java.TypedArrayType;
 import com.jsen.core.reflect.ClassMembersResolverFactory;
-import com.jsen.core.reflect.DefaultObjectMembers;
 import com.jsen.core.reflect.ObjectGetter;
 
 import org.mozilla.javascript.Context;
@@ -34,6 +39,7 @@ import org.mozilla.javascript.Scriptable;
 /**
  * Wrap factory decorator that wraps Java native collections and makes 
  * accessible their items via JavaScript indexed properties or mapped properties.
+ * Java primitive arrays are wrapped into typed array views, which access the array directly.
  * 
  * @author Radim Loskot
  * @version 0.9
@@ -42,11 +48,14 @@ import org.mozilla.javascript.Scriptable;
 public class CollectionsWrapFactoryDecorator extends WrapFactoryDecorator {
 	
 	protected ClassMembersResolverFactory membersResolverFactory;
+	protected HostedClassMembersCache classMembersCache;
 	
 	/**
 	 * Constructs leaf collections wrap factory decorator. 
 	 */
-	public CollectionsWrapFactoryDecorator() {}
+	public CollectionsWrapFactoryDecorator() {
+		this.classMembersCache = new HostedClassMembersCache(null);
+	}
 	
 	/**
 	 * Constructs new wrap factory decorator.
@@ -54,22 +63,54 @@ public class CollectionsWrapFactoryDecorator extends WrapFactoryDecorator {
 	 * @param decorator Decorator the be added as a child decorator and chained.
 	 */
 	public CollectionsWrapFactoryDecorator(ClassMembersResolverFactory membersResolverFactory, WrapFactoryDecorator decorator) {
+		this(new HostedClassMembersCache(membersResolverFactory), decorator);
+	}
+	
+	/**
+	 * Constructs new wrap factory decorator.
+	 * 
+	 * @param classMembersCache Cache of the class members used for wrapping of the collections.
+	 * @param decorator Decorator the be added as a child decorator and chained.
+	 */
+	public CollectionsWrapFactoryDecorator(HostedClassMembersCache classMembersCache, WrapFactoryDecorator decorator) {
 		super(decorator);
 		
-		this.membersResolverFactory = membersResolverFactory;
+		this.classMembersCache = classMembersCache;
+		this.membersResolverFactory = classMembersCache.getMembersResolverFactory();
+	}
+	
+	@Override
+	public Object wrap(Context cx, Scriptable scope, Object obj, Class<?> staticType) {
+		TypedArrayType arrayType = TypedArrayType.forArray(obj);
+		
+		if (arrayType != null) {
+			return new HostedJavaArray(scope, obj, arrayType);
+		}
+		
+		return super.wrap(cx, scope, obj, staticType);
 	}
 	
 	@Override
 	public Scriptable wrapAsJavaObject(Context cx, Scriptable scope, Object javaObject, Class<?> staticType) {
+		TypedArrayType arrayType = TypedArrayType.forArray(javaObject);
+		
+		if (arrayType != null) {
+			return new HostedJavaArray(scope, javaObject, arrayType);
+		}
+		
 		final Class<?> type = javaObject.getClass();
 		boolean isCollection = List.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type) || ObjectGetter.class.isAssignableFrom(type);
         
 		if (isCollection && List.class.isAssignableFrom(type)) {
-			DefaultObjectMembers objectMembers = DefaultObjectMembers.getObjectMembers(new ArrayWrapper(javaObject), membersResolverFactory);
-        	return new HostedJavaCollection(scope, objectMembers);
+			ArrayWrapper arrayWrapper = new ArrayWrapper(javaObject);
+			HostedClassMembers classMembers = classMembersCache.getClassMembers(arrayWrapper);
+        	return new HostedJavaList(scope, arrayWrapper, classMembers);
+        } else if (isCollection && Map.class.isAssignableFrom(type)) {
+			HostedClassMembers classMembers = classMembersCache.getClassMembers(javaObject);
+        	return new HostedJavaMap(scope, (Map<?, ?>)javaObject, classMembers);
         } else if (isCollection) {
-			DefaultObjectMembers objectMembers = DefaultObjectMembers.getObjectMembers(javaObject, membersResolverFactory);
-        	return new HostedJavaCollection(scope, objectMembers);
+			HostedClassMembers classMembers = classMembersCache.getClassMembers(javaObject);
+        	return new HostedJavaCollection(scope, javaObject, classMembers);
         }
         
         return super.wrapAsJavaObject(cx, scope, javaObject, staticType);
@@ -19,10 +19,11 @@
 
 package com.jsen.javascript.wrap;
 
+import com.jsen.javascript.java.HostedClassMembers;
+import com.jsen.javascript.java.HostedClassMembersCache;
 import com.jsen.javascript.java.HostedJavaObject;
 import com.jsen.core.reflect.ClassMembersResolverFactory;
 import com.jsen.core.reflect.DefaultClassMembersResolverFactory;
-import com.jsen.core.reflect.DefaultObjectMembers;
 
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.Scriptable;
@@ -74,12 +75,13 @@ public class DefaultWrapFactoryDecorator extends WrapFactoryDecorator {
 	
 	protected DecoratedWrapFactory factory;
 	protected ClassMembersResolverFactory membersResolverFactory;
+	protected HostedClassMembersCache classMembersCache;
 	
 	/**
 	 * Constructs leaf wrap factory decorator using the default class members resolver. 
 	 */
 	public DefaultWrapFactoryDecorator() {
-		this(null, null);
+		this(null, (ClassMembersResolverFactory)null);
 	}
 	
 	/**
@@ -88,7 +90,7 @@ public class DefaultWrapFactoryDecorator extends WrapFactoryDecorator {
 	 * @param decorator Decorator the be added as a child decorator and chained.
 	 */
 	public DefaultWrapFactoryDecorator(WrapFactoryDecorator decorator) {
-		this(decorator, null);
+		this(decorator, (ClassMembersResolverFactory)null);
 	}
 	
 	/**
@@ -107,9 +109,20 @@ public class DefaultWrapFactoryDecorator extends WrapFactoryDecorator {
 	 * @param membersResolverFactory Members resolver factory used for wrapping of the Java object.
 	 */
 	public DefaultWrapFactoryDecorator(WrapFactoryDecorator decorator, ClassMembersResolverFactory membersResolverFactory) {
+		this(decorator, new HostedClassMembersCache((membersResolverFactory == null)? new DefaultClassMembersResolverFactory() : membersResolverFactory));
+	}
+	
+	/**
+	 * Constructs new wrap factory decorator and chains the passed decorator.
+	 * 
+	 * @param decorator Decorator the be added as a child decorator and chained.
+	 * @param classMembersCache Cache of the class members used for wrapping of the Java object.
+	 */
+	public DefaultWrapFactoryDecorator(WrapFactoryDecorator decorator, HostedClassMembersCache classMembersCache) {
 		super(decorator);
 		
-		this.membersResolverFactory = (membersResolverFactory == null)? new DefaultClassMembersResolverFactory() : membersResolverFactory;
+		this.classMembersCache = classMembersCache;
+		this.membersResolverFactory = classMembersCache.getMembersResolverFactory();
 		
 		factory = new DecoratedWrapFactory();
 		factory.setJavaPrimitiveWrap(false);
@@ -122,8 +135,8 @@ public class DefaultWrapFactoryDecorator extends WrapFactoryDecorator {
 	
 	@Override
 	public Scriptable wrapAsJavaObject(Context cx, Scriptable scope, Object javaObject, Class<?> staticType) {
-		DefaultObjectMembers objectMembers = DefaultObjectMembers.getObjectMembers(javaObject, membersResolverFactory);
-		return new HostedJavaObject(scope, objectMembers);
+		HostedClassMembers classMembers = classMembersCache.getClassMembers(javaObject);
+		return new HostedJavaObject(scope, javaObject, classMembers);
 	}
 	
 	@SuppressWarnings("rawtypes")
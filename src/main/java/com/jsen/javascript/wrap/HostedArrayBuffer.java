@@ -0,0 +1,117 @@
+/**
+ * HostedArrayBuffer.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Wrapper;
+
+/**
+ * Script array buffer which is backed by the byte buffer. It covers the bytes of the buffer
+ * between its position and limit at the time of wrapping and it shares them with the buffer,
+ * so nothing is copied and it works in the same way for heap, direct and mapped buffers.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedArrayBuffer extends ScriptableObject implements Wrapper {
+	private static final long serialVersionUID = 6230874527703839212L;
+	
+	private static final String CLASS_NAME = "ArrayBuffer";
+	private static final String BYTE_LENGTH_PROPERTY = "byteLength";
+	
+	protected ByteBuffer originalBuffer;
+	protected ByteBuffer buffer;
+	
+	/**
+	 * Constructs new array buffer.
+	 * 
+	 * @param scope Parent scope where to place this array buffer.
+	 * @param buffer Byte buffer which backs this array buffer.
+	 */
+	public HostedArrayBuffer(Scriptable scope, ByteBuffer buffer) {
+		super(scope, ScriptableObject.getObjectPrototype(scope));
+		
+		this.originalBuffer = buffer;
+		this.buffer = buffer.slice();
+	}
+	
+	/**
+	 * Returns buffer which backs this array buffer, its first byte is the first byte of this array buffer.
+	 * 
+	 * @return Backing buffer.
+	 */
+	public ByteBuffer getBuffer() {
+		return buffer;
+	}
+	
+	/**
+	 * Returns length of this array buffer.
+	 * 
+	 * @return Length in bytes.
+	 */
+	public int getByteLength() {
+		return buffer.capacity();
+	}
+	
+	/**
+	 * Tests whether the backing buffer is read only.
+	 * 
+	 * @return True if the writes are ignored, otherwise false.
+	 */
+	public boolean isReadOnly() {
+		return buffer.isReadOnly();
+	}
+	
+	@Override
+	public String getClassName() {
+		return CLASS_NAME;
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		if (name.equals(BYTE_LENGTH_PROPERTY)) {
+			return getByteLength();
+		}
+		
+		return super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return name.equals(BYTE_LENGTH_PROPERTY) || super.has(name, start);
+	}
+	
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		if (!name.equals(BYTE_LENGTH_PROPERTY)) {
+			super.put(name, start, value);
+		}
+	}
+	
+	@Override
+	public Object unwrap() {
+		return originalBuffer;
+	}
+}
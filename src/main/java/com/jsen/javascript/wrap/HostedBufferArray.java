@@ -0,0 +1,197 @@
+/**
+ * HostedBufferArray.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Wrapper;
+
+/**
+ * Script typed array which reads and writes its elements directly in the array buffer.
+ * Elements are stored in the native byte order, as the typed arrays do. Array has fixed length,
+ * writes out of its range and writes into read only buffers are ignored. Array prototype is used
+ * as its prototype, so the generic array functions work over it.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedBufferArray extends ScriptableObject implements Wrapper {
+	private static final long serialVersionUID = -3409416624917063582L;
+	
+	private static final String LENGTH_PROPERTY = "length";
+	private static final String BYTE_LENGTH_PROPERTY = "byteLength";
+	private static final String BYTE_OFFSET_PROPERTY = "byteOffset";
+	private static final String BYTES_PER_ELEMENT_PROPERTY = "BYTES_PER_ELEMENT";
+	private static final String BUFFER_PROPERTY = "buffer";
+	
+	protected Object javaObject;
+	protected HostedArrayBuffer arrayBuffer;
+	protected ByteBuffer buffer;
+	protected BufferElementType type;
+	protected int byteOffset;
+	protected int length;
+	protected boolean readOnly;
+	
+	/**
+	 * Constructs typed array over the whole array buffer.
+	 * 
+	 * @param scope Parent scope where to place this typed array.
+	 * @param arrayBuffer Array buffer which holds the elements.
+	 * @param type Element type of the array.
+	 */
+	public HostedBufferArray(Scriptable scope, HostedArrayBuffer arrayBuffer, BufferElementType type) {
+		this(scope, arrayBuffer, type, 0, arrayBuffer.getByteLength() / type.getBytesPerElement());
+	}
+	
+	/**
+	 * Constructs typed array over the part of the array buffer.
+	 * 
+	 * @param scope Parent scope where to place this typed array.
+	 * @param arrayBuffer Array buffer which holds the elements.
+	 * @param type Element type of the array.
+	 * @param byteOffset Offset of the first element in the array buffer.
+	 * @param length Number of the elements.
+	 */
+	public HostedBufferArray(Scriptable scope, HostedArrayBuffer arrayBuffer, BufferElementType type, int byteOffset, int length) {
+		super(scope, ScriptableObject.getArrayPrototype(scope));
+		
+		if (byteOffset < 0 || length < 0 || (long)byteOffset + (long)length * type.getBytesPerElement() > arrayBuffer.getByteLength()) {
+			throw new IllegalArgumentException("Typed array is outside the bounds of the array buffer");
+		}
+		
+		this.javaObject = arrayBuffer.unwrap();
+		this.arrayBuffer = arrayBuffer;
+		this.buffer = arrayBuffer.getBuffer().duplicate().order(ByteOrder.nativeOrder());
+		this.type = type;
+		this.byteOffset = byteOffset;
+		this.length = length;
+		this.readOnly = arrayBuffer.isReadOnly();
+	}
+	
+	/**
+	 * Sets object which is returned when this array is unwrapped.
+	 * 
+	 * @param javaObject Unwrapped object of this array.
+	 */
+	public void setJavaObject(Object javaObject) {
+		this.javaObject = javaObject;
+	}
+	
+	/**
+	 * Returns element type of this array.
+	 * 
+	 * @return Element type of this array.
+	 */
+	public BufferElementType getType() {
+		return type;
+	}
+	
+	/**
+	 * Returns array buffer which holds the elements.
+	 * 
+	 * @return Array buffer of this array.
+	 */
+	public HostedArrayBuffer getArrayBuffer() {
+		return arrayBuffer;
+	}
+	
+	@Override
+	public String getClassName() {
+		return type.getArrayClassName();
+	}
+	
+	@Override
+	public Object get(int index, Scriptable start) {
+		return (index >= 0 && index < length)? type.get(buffer, byteOffset + index * type.getBytesPerElement()) : Scriptable.NOT_FOUND;
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		if (name.equals(LENGTH_PROPERTY)) {
+			return length;
+		} else if (name.equals(BYTE_LENGTH_PROPERTY)) {
+			return length * type.getBytesPerElement();
+		} else if (name.equals(BYTE_OFFSET_PROPERTY)) {
+			return byteOffset;
+		} else if (name.equals(BYTES_PER_ELEMENT_PROPERTY)) {
+			return type.getBytesPerElement();
+		} else if (name.equals(BUFFER_PROPERTY)) {
+			return arrayBuffer;
+		}
+		
+		return super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(int index, Scriptable start) {
+		return index >= 0 && index < length;
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return isOwnProperty(name) || super.has(name, start);
+	}
+	
+	@Override
+	public void put(int index, Scriptable start, Object value) {
+		if (!readOnly && index >= 0 && index < length) {
+			type.set(buffer, byteOffset + index * type.getBytesPerElement(), value);
+		}
+	}
+	
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		if (!isOwnProperty(name)) {
+			super.put(name, start, value);
+		}
+	}
+	
+	@Override
+	public void delete(int index) {
+	}
+	
+	@Override
+	public Object[] getIds() {
+		Object[] superIds = super.getIds();
+		Object[] ids = new Object[length + superIds.length];
+		
+		for (int i = 0; i < length; i++) {
+			ids[i] = i;
+		}
+		
+		System.arraycopy(superIds, 0, ids, length, superIds.length);
+		return ids;
+	}
+	
+	@Override
+	public Object unwrap() {
+		return javaObject;
+	}
+	
+	private static boolean isOwnProperty(String name) {
+		return name.equals(LENGTH_PROPERTY) || name.equals(BYTE_LENGTH_PROPERTY) || name.equals(BYTE_OFFSET_PROPERTY) 
+				|| name.equals(BYTES_PER_ELEMENT_PROPERTY) || name.equals(BUFFER_PROPERTY);
+	}
+}
@@ -0,0 +1,274 @@
+/**
+ * HostedDataView.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.mozilla.javascript.BaseFunction;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.ScriptRuntime;
+import org.mozilla.javascript.Scriptable;
+import org.mozilla.javascript.ScriptableObject;
+import org.mozilla.javascript.Undefined;
+import org.mozilla.javascript.Wrapper;
+
+/**
+ * Script data view which reads and writes the values of any element type directly
+ * in the array buffer. Accessors have the same signatures as the accessors of the data view,
+ * e.g. <code>getInt32(byteOffset, littleEndian)</code> and <code>setFloat64(byteOffset, value, littleEndian)</code>,
+ * values are stored in the big endian byte order if the little endian flag is not passed.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class HostedDataView extends ScriptableObject implements Wrapper {
+	private static final long serialVersionUID = 2783902151874046175L;
+	
+	private static final String CLASS_NAME = "DataView";
+	private static final String BYTE_LENGTH_PROPERTY = "byteLength";
+	private static final String BYTE_OFFSET_PROPERTY = "byteOffset";
+	private static final String BUFFER_PROPERTY = "buffer";
+	private static final String GETTER_PREFIX = "get";
+	private static final String SETTER_PREFIX = "set";
+	
+	/*
+	 * Getter or setter of the one element type, it is shared by all calls on this data view.
+	 */
+	private static class AccessorFunction extends BaseFunction {
+		private static final long serialVersionUID = -3052950389213916297L;
+		
+		private final BufferElementType type;
+		private final boolean setter;
+		
+		public AccessorFunction(Scriptable scope, BufferElementType type, boolean setter) {
+			this.type = type;
+			this.setter = setter;
+			
+			ScriptRuntime.setFunctionProtoAndParent(this, scope);
+		}
+		
+		@Override
+		public Object call(Context cx, Scriptable scope, Scriptable thisObj, Object[] args) {
+			if (!(thisObj instanceof HostedDataView)) {
+				throw ScriptRuntime.typeError("Data view accessor called on incompatible object");
+			}
+			
+			HostedDataView dataView = (HostedDataView)thisObj;
+			double byteIndex = ScriptRuntime.toInteger(getArgument(args, 0));
+			
+			if (setter) {
+				dataView.set(type, byteIndex, getArgument(args, 1), ScriptRuntime.toBoolean(getArgument(args, 2)));
+				return Undefined.instance;
+			} else {
+				return dataView.get(type, byteIndex, ScriptRuntime.toBoolean(getArgument(args, 1)));
+			}
+		}
+		
+		@Override
+		public String getFunctionName() {
+			return ((setter)? SETTER_PREFIX : GETTER_PREFIX) + type.getName();
+		}
+		
+		private static Object getArgument(Object[] args, int index) {
+			return (index < args.length)? args[index] : Undefined.instance;
+		}
+	}
+	
+	protected Object javaObject;
+	protected HostedArrayBuffer arrayBuffer;
+	protected ByteBuffer bigEndianBuffer;
+	protected ByteBuffer littleEndianBuffer;
+	protected int byteOffset;
+	protected int byteLength;
+	
+	private final AccessorFunction[] accessors;
+	
+	/**
+	 * Constructs data view over the whole array buffer.
+	 * 
+	 * @param scope Parent scope where to place this data view.
+	 * @param arrayBuffer Array buffer which holds the data.
+	 */
+	public HostedDataView(Scriptable scope, HostedArrayBuffer arrayBuffer) {
+		this(scope, arrayBuffer, 0, arrayBuffer.getByteLength());
+	}
+	
+	/**
+	 * Constructs data view over the part of the array buffer.
+	 * 
+	 * @param scope Parent scope where to place this data view.
+	 * @param arrayBuffer Array buffer which holds the data.
+	 * @param byteOffset Offset of the first byte of the view in the array buffer.
+	 * @param byteLength Length of the view in bytes.
+	 */
+	public HostedDataView(Scriptable scope, HostedArrayBuffer arrayBuffer, int byteOffset, int byteLength) {
+		super(scope, ScriptableObject.getObjectPrototype(scope));
+		
+		if (byteOffset < 0 || byteLength < 0 || (long)byteOffset + byteLength > arrayBuffer.getByteLength()) {
+			throw new IllegalArgumentException("Data view is outside the bounds of the array buffer");
+		}
+		
+		ByteBuffer buffer = arrayBuffer.getBuffer();
+		
+		this.javaObject = arrayBuffer.unwrap();
+		this.arrayBuffer = arrayBuffer;
+		this.bigEndianBuffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+		this.littleEndianBuffer = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		this.byteOffset = byteOffset;
+		this.byteLength = byteLength;
+		this.accessors = new AccessorFunction[BufferElementType.values().length * 2];
+	}
+	
+	/**
+	 * Sets object which is returned when this data view is unwrapped.
+	 * 
+	 * @param javaObject Unwrapped object of this data view.
+	 */
+	public void setJavaObject(Object javaObject) {
+		this.javaObject = javaObject;
+	}
+	
+	/**
+	 * Returns array buffer which holds the data.
+	 * 
+	 * @return Array buffer of this data view.
+	 */
+	public HostedArrayBuffer getArrayBuffer() {
+		return arrayBuffer;
+	}
+	
+	/**
+	 * Reads the value from the array buffer.
+	 * 
+	 * @param type Type of the value.
+	 * @param byteIndex Index of the first byte of the value relative to this view, it has to be integral.
+	 * @param littleEndian True if the value is stored in the little endian byte order.
+	 * @return Read value converted into script value.
+	 */
+	public Object get(BufferElementType type, double byteIndex, boolean littleEndian) {
+		checkRange(type, byteIndex);
+		
+		return type.get((littleEndian)? littleEndianBuffer : bigEndianBuffer, byteOffset + (int)byteIndex);
+	}
+	
+	/**
+	 * Converts the script value and writes it into array buffer.
+	 * 
+	 * @param type Type of the value.
+	 * @param byteIndex Index of the first byte of the value relative to this view, it has to be integral.
+	 * @param value Script value to be written.
+	 * @param littleEndian True if the value should be stored in the little endian byte order.
+	 */
+	public void set(BufferElementType type, double byteIndex, Object value, boolean littleEndian) {
+		checkRange(type, byteIndex);
+		
+		if (arrayBuffer.isReadOnly()) {
+			throw ScriptRuntime.typeError("Data view is backed by read only buffer");
+		}
+		
+		type.set((littleEndian)? littleEndianBuffer : bigEndianBuffer, byteOffset + (int)byteIndex, value);
+	}
+	
+	@Override
+	public String getClassName() {
+		return CLASS_NAME;
+	}
+	
+	@Override
+	public Object get(String name, Scriptable start) {
+		if (name.equals(BYTE_LENGTH_PROPERTY)) {
+			return byteLength;
+		} else if (name.equals(BYTE_OFFSET_PROPERTY)) {
+			return byteOffset;
+		} else if (name.equals(BUFFER_PROPERTY)) {
+			return arrayBuffer;
+		}
+		
+		AccessorFunction accessor = getAccessor(name);
+		return (accessor != null)? accessor : super.get(name, start);
+	}
+	
+	@Override
+	public boolean has(String name, Scriptable start) {
+		return isOwnProperty(name) || getAccessorIndex(name) >= 0 || super.has(name, start);
+	}
+	
+	@Override
+	public void put(String name, Scriptable start, Object value) {
+		if (!isOwnProperty(name) && getAccessorIndex(name) < 0) {
+			super.put(name, start, value);
+		}
+	}
+	
+	@Override
+	public Object unwrap() {
+		return javaObject;
+	}
+	
+	private void checkRange(BufferElementType type, double byteIndex) {
+		/* Checked in double, so the indexes out of the integer range cannot wrap around or overflow */
+		if (!(byteIndex >= 0) || byteIndex + type.getBytesPerElement() > byteLength) {
+			throw ScriptRuntime.constructError("RangeError", "Offset is outside the bounds of the data view");
+		}
+	}
+	
+	private AccessorFunction getAccessor(String name) {
+		int index = getAccessorIndex(name);
+		
+		if (index < 0) {
+			return null;
+		}
+		
+		AccessorFunction accessor = accessors[index];
+		
+		if (accessor == null) {
+			BufferElementType type = BufferElementType.values()[index / 2];
+			accessor = new AccessorFunction(getParentScope(), type, index % 2 == 1);
+			accessors[index] = accessor;
+		}
+		
+		return accessor;
+	}
+	
+	private static int getAccessorIndex(String name) {
+		boolean setter = name.startsWith(SETTER_PREFIX);
+		
+		if (!setter && !name.startsWith(GETTER_PREFIX)) {
+			return -1;
+		}
+		
+		String typeName = name.substring(GETTER_PREFIX.length());
+		
+		for (BufferElementType type : BufferElementType.values()) {
+			if (type != BufferElementType.UINT8_CLAMPED && type.getName().equals(typeName)) {
+				return type.ordinal() * 2 + ((setter)? 1 : 0);
+			}
+		}
+		
+		return -1;
+	}
+	
+	private static boolean isOwnProperty(String name) {
+		return name.equals(BYTE_LENGTH_PROPERTY) || name.equals(BYTE_OFFSET_PROPERTY) || name.equals(BUFFER_PROPERTY);
+	}
+}
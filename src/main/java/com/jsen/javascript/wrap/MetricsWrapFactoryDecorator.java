@@ -0,0 +1,74 @@
+/**
+ * MetricsWrapFactoryDecorator.java
+ * (c) Radim Loskot and Radek Burget, 2013-2014
+ *
+ * ScriptBox is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * ScriptBox is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with ScriptBox. If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+
+package com.jsen.javascript.wrap;
+
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+import com.jsen.javascript.metrics.EngineMetrics;
+import com.jsen.javascript.metrics.ScriptMetrics;
+
+/**
+ * Wrap factory decorator which records every wrapper created by its child decorators
+ * into the engine metrics. It should be the first decorator of the chain, because
+ * the decorators create nested wrappers through the first decorator.
+ * 
+ * @author Radim Loskot
+ * @version 0.9
+ * @since 0.9 - 21.4.2014
+ */
+public class MetricsWrapFactoryDecorator extends WrapFactoryDecorator {
+	
+	/**
+	 * Constructs new wrap factory decorator and chains the passed decorator.
+	 * 
+	 * @param decorator Decorator the be added as a child decorator and chained.
+	 */
+	public MetricsWrapFactoryDecorator(WrapFactoryDecorator decorator) {
+		super(decorator);
+	}
+	
+	@Override
+	public Scriptable wrapAsJavaObject(Context cx, Scriptable scope, Object javaObject, Class<?> staticType) {
+		return record(childWrapAsJavaObject(cx, scope, javaObject, staticType));
+	}
+	
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Scriptable wrapJavaClass(Context cx, Scriptable scope, Class javaClass) {
+		return record(childWrapJavaClass(cx, scope, javaClass));
+	}
+	
+	@Override
+	public Scriptable wrapNewObject(Context cx, Scriptable scope, Object obj) {
+		return record(childWrapNewObject(cx, scope, obj));
+	}
+	
+	private static Scriptable record(Scriptable wrapper) {
+		ScriptMetrics metrics = EngineMetrics.getMetrics();
+		
+		if (wrapper != null && metrics.isEnabled()) {
+			metrics.recordWrapper(wrapper.getClass());
+		}
+		
+		return wrapper;
+	}
+}